@@ -0,0 +1,171 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.json.XML;
+import org.json.simple.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Every codec the harness has used, parsing and writing real /todos, /projects and /categories responses.
+// Payloads are captured from a running server beforehand: mvn test -Dtest=PayloadCapture (in the root project).
+// Each parse starts from the raw bytes, as a response body arrives, so charset decoding is part of the cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CodecBenchmark {
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"todos", "projects", "categories"})
+    String type;
+
+    @Param({"10", "100", "1000", "10000"})
+    int size;
+
+    byte[] json;
+    byte[] xml;
+
+    MethodHandle streamingDecoder;
+    MethodHandle staxDecoder;
+    MethodHandle staxEncoder;
+
+    org.json.simple.JSONObject jsonSimpleTree;
+    JSONObject orgJsonTree;
+    JsonNode jacksonTree;
+    Map<String, List<?>> records;
+    List<?> recordList;
+
+    @Setup
+    public void load() throws Throwable {
+        Path directory = payloadDirectory();
+        json = Files.readAllBytes(directory.resolve(type + "-" + size + ".json"));
+        xml = Files.readAllBytes(directory.resolve(type + "-" + size + ".xml"));
+
+        // JMH generates code into this package, and a named package cannot name classes in the harness's unnamed
+        // package, so the streaming codecs (JsonEntityDecoder.todos, XmlEntityCodec.writeTodos, ...) are reached through handles
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodType decode = MethodType.methodType(List.class, InputStream.class);
+        streamingDecoder = lookup.findStatic(Class.forName("JsonEntityDecoder"), type, decode);
+        Class<?> xmlCodec = Class.forName("XmlEntityCodec");
+        staxDecoder = lookup.findStatic(xmlCodec, type, decode);
+        String write = "write" + Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        staxEncoder = lookup.findStatic(xmlCodec, write, MethodType.methodType(void.class, OutputStream.class, List.class));
+
+        jsonSimpleTree = (org.json.simple.JSONObject) parseJsonSimple();
+        orgJsonTree = parseOrgJson();
+        jacksonTree = parseJacksonTree();
+        recordList = parseJacksonStreaming();
+        records = Map.of(type, recordList);
+    }
+
+    static Path payloadDirectory() {
+        String configured = System.getProperty("todomanager.payloads");
+        List<Path> candidates = configured != null
+                ? List.of(Paths.get(configured))
+                : List.of(Paths.get("target", "payloads"), Paths.get("..", "target", "payloads"));
+        for (Path candidate : candidates) {
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No payloads in " + candidates + ". Capture them first with "
+                + "'mvn test -Dtest=PayloadCapture' in the root project, or point -Dtodomanager.payloads at them.");
+    }
+
+    //----------------------------------------------------------- parse -----------------------------------------------------------//
+
+    @Benchmark
+    public Object parseJsonSimple() throws Exception {
+        return new JSONParser().parse(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public JSONObject parseOrgJson() {
+        return new JSONObject(new JSONTokener(new ByteArrayInputStream(json)));
+    }
+
+    @Benchmark
+    public JsonNode parseJacksonTree() throws Exception {
+        return MAPPER.readTree(json);
+    }
+
+    @Benchmark
+    public List<?> parseJacksonStreaming() throws Throwable {
+        return (List<?>) streamingDecoder.invoke((InputStream) new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public JSONObject parseOrgJsonXml() {
+        return XML.toJSONObject(new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public List<?> parseStax() throws Throwable {
+        return (List<?>) staxDecoder.invoke((InputStream) new ByteArrayInputStream(xml));
+    }
+
+    //----------------------------------------------------------- serialize -----------------------------------------------------------//
+
+    @Benchmark
+    public byte[] serializeJsonSimple() {
+        return jsonSimpleTree.toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeOrgJson() {
+        return orgJsonTree.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeJacksonTree() throws Exception {
+        return MAPPER.writeValueAsBytes(jacksonTree);
+    }
+
+    @Benchmark
+    public byte[] serializeJacksonRecords() throws Exception {
+        return MAPPER.writeValueAsBytes(records);
+    }
+
+    @Benchmark
+    public byte[] serializeOrgJsonXml() {
+        return XML.toString(orgJsonTree).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeStaxRecords() throws Throwable {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length);
+        staxEncoder.invoke((OutputStream) out, recordList);
+        return out.toByteArray();
+    }
+}
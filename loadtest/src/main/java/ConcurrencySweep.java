@@ -0,0 +1,225 @@
+import okhttp3.ConnectionPool;
+import org.HdrHistogram.Histogram;
+import org.json.simple.JSONObject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-model load: a fixed number of virtual users, each running a scenario of blocking client calls back to
+// back, stepped up (1, 2, 4 ... 512 users) and held at every step. Throughput rises with users until the server
+// saturates; after that, more users only wait longer. The knee is the first step within todomanager.sweep.kneeGain
+// of the best throughput of the sweep: every step after it adds less than that, however noisy the steps before.
+//   todomanager.sweep.scenario=crud        crud, read or relationships
+//   todomanager.sweep.users=1,2,4,...,512  or todomanager.sweep.maxUsers=512 for doubling up to it
+//   todomanager.sweep.hold=10s             time at each step, of which the first todomanager.sweep.settle=2s is not measured
+//   todomanager.sweep.kneeGain=1.1
+// In a closed model a user only sends once it has its answer, so there are no missed sends to correct for:
+// latency is the call's own time.
+public class ConcurrencySweep {
+
+    static final String SCENARIO = System.getProperty("todomanager.sweep.scenario", "crud");
+    static final int MAX_USERS = Integer.getInteger("todomanager.sweep.maxUsers", 512);
+    static final String USERS = System.getProperty("todomanager.sweep.users");
+    static final Duration HOLD = LoadTest.duration("todomanager.sweep.hold", "10s");
+    static final Duration SETTLE = LoadTest.duration("todomanager.sweep.settle", "2s");
+    static final double KNEE_GAIN = Double.parseDouble(System.getProperty("todomanager.sweep.kneeGain", "1.1"));
+
+    // one iteration of a virtual user, timing every call through the step
+    interface Scenario {
+        void run(TodoManagerClient client, Random random, Step step);
+    }
+
+    static final Map<String, Scenario> SCENARIOS = Map.of(
+            "crud", ConcurrencySweep::crud,
+            "read", ConcurrencySweep::read,
+            "relationships", ConcurrencySweep::relationships);
+
+    public record Result(int users, double throughput, double meanMillis, double p50, double p99, double p999, double max, long errors) {
+        // Little's law: calls in service on average; well below the user count means the users were not kept busy
+        double inService() {
+            return throughput * meanMillis / 1000;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = SCENARIOS.get(SCENARIO);
+        if (scenario == null) {
+            throw new IllegalArgumentException("Unknown scenario '" + SCENARIO + "'. Scenarios: " + SCENARIOS.keySet());
+        }
+        List<Integer> steps = steps();
+        int maxUsers = steps.stream().mapToInt(Integer::intValue).max().orElse(1);
+        try (LoadTarget target = LoadTarget.open()) {
+            // synchronous calls are not limited by the dispatcher, but every user needs a connection of its own
+            TodoManagerClient client = new TodoManagerClient(target.http().newBuilder()
+                    .connectionPool(new ConnectionPool(maxUsers, 5, TimeUnit.MINUTES)).build(), target.baseUrl());
+            List<String> todoIds = client.fetchTodos().stream().map(Todo::id).toList();
+            List<String> projectIds = client.fetchProjects().stream().map(Project::id).toList();
+            System.out.printf("Closed model: scenario %s, %s users, %ds per step (%ds settle) against %s%n",
+                    SCENARIO, steps, HOLD.toSeconds(), SETTLE.toSeconds(), target.baseUrl());
+            List<Result> results = new ArrayList<>();
+            for (int users : steps) {
+                Result result = step(client, scenario, users, todoIds, projectIds);
+                results.add(result);
+                System.out.printf("  %4d users: %8.1f req/s, p99 %.2f ms%n", users, result.throughput(), result.p99());
+                if (result.errors() * 2 > result.throughput() * (HOLD.toSeconds() - SETTLE.toSeconds())) {
+                    System.out.println("More than half the calls failed at " + users + " users; stopping the sweep");
+                    break;
+                }
+            }
+            print(results, knee(results, KNEE_GAIN));
+        }
+    }
+
+    static List<Integer> steps() {
+        List<Integer> steps = new ArrayList<>();
+        if (USERS != null) {
+            for (String users : USERS.split(",")) {
+                steps.add(Integer.parseInt(users.trim()));
+            }
+        } else {
+            for (int users = 1; users <= MAX_USERS; users *= 2) {
+                steps.add(users);
+            }
+        }
+        return steps;
+    }
+
+    //----------------------------------------------------------- steps -----------------------------------------------------------//
+
+    // what the users of one step share: the seeded ids, where measuring starts and where the timings go
+    static final class Step {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final AtomicLong failures = new AtomicLong();
+        final List<String> todoIds;
+        final List<String> projectIds;
+        final long measureFrom;
+        final long end;
+
+        Step(List<String> todoIds, List<String> projectIds, long measureFrom, long end) {
+            this.todoIds = todoIds;
+            this.projectIds = projectIds;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        ApiResponse record(String route, ApiResponse response) {
+            if (System.nanoTime() >= measureFrom) {
+                recorder.record(route, response.elapsedNanos(), !response.isSuccessful());
+            }
+            return response;
+        }
+    }
+
+    static Result step(TodoManagerClient client, Scenario scenario, int users, List<String> todoIds, List<String> projectIds)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        Step step = new Step(todoIds, projectIds, start + SETTLE.toNanos(), start + HOLD.toNanos());
+        List<Thread> threads = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            Random random = new Random(user);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < step.end) {
+                    try {
+                        scenario.run(client, random, step);
+                    } catch (RuntimeException e) {
+                        // connection refused or timed out: an error without a latency, and the user starts over
+                        step.failures.incrementAndGet();
+                    }
+                }
+            }, "virtual-user-" + user);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Histogram latency = step.recorder.total();
+        double seconds = (HOLD.toNanos() - SETTLE.toNanos()) / 1e9;
+        return new Result(users, latency.getTotalCount() / seconds, latency.getMean() / 1000,
+                LatencyRecorder.millis(latency.getValueAtPercentile(50)), LatencyRecorder.millis(latency.getValueAtPercentile(99)),
+                LatencyRecorder.millis(latency.getValueAtPercentile(99.9)), LatencyRecorder.millis(latency.getMaxValue()),
+                step.recorder.errors() + step.failures.get());
+    }
+
+    //----------------------------------------------------------- scenarios -----------------------------------------------------------//
+
+    // a todo's whole life: create, read, amend, delete
+    static void crud(TodoManagerClient client, Random random, Step step) {
+        ApiResponse created = step.record("POST /todos", client.createTodo(fields("title", "sweep")));
+        if (created.code() != 201) {
+            return;
+        }
+        String id = (String) created.json().get("id");
+        step.record("GET /todos/:id", client.todo(id));
+        step.record("POST /todos/:id", client.amendTodo(id, fields("description", "swept")));
+        step.record("DELETE /todos/:id", client.deleteTodo(id));
+    }
+
+    // listings and single reads of the seeded data
+    static void read(TodoManagerClient client, Random random, Step step) {
+        step.record("GET /todos", client.todos());
+        step.record("GET /todos/:id", client.todo(pick(step.todoIds, random)));
+        step.record("GET /projects/:id/tasks", client.projectTasks(pick(step.projectIds, random)));
+    }
+
+    // a new todo wired to a project and unwired again, so the relationship lists do not grow from step to step
+    static void relationships(TodoManagerClient client, Random random, Step step) {
+        ApiResponse created = step.record("POST /todos", client.createTodo(fields("title", "sweep")));
+        if (created.code() != 201) {
+            return;
+        }
+        String id = (String) created.json().get("id");
+        String project = pick(step.projectIds, random);
+        step.record("POST /projects/:id/tasks", client.linkProjectTask(project, id));
+        step.record("GET /todos/:id/tasksof", client.todoTasksOf(id));
+        step.record("DELETE /projects/:id/tasks/:id", client.unlinkProjectTask(project, id));
+        step.record("DELETE /todos/:id", client.deleteTodo(id));
+    }
+
+    private static String pick(List<String> ids, Random random) {
+        return ids.isEmpty() ? "0" : ids.get(random.nextInt(ids.size()));
+    }
+
+    private static JSONObject fields(String name, String value) {
+        JSONObject body = new JSONObject();
+        body.put(name, value);
+        return body;
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    // index of the first step within the gain of the peak, or -1 if only the last step got there
+    static int knee(List<Result> results, double gain) {
+        double peak = results.stream().mapToDouble(Result::throughput).max().orElse(0);
+        for (int i = 0; i + 1 < results.size(); i++) {
+            if (results.get(i).throughput() * gain >= peak) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static void print(List<Result> results, int knee) {
+        System.out.printf("%n%6s %9s %9s %9s %9s %9s %7s %10s%n", "users", "req/s", "p50", "p99", "p99.9", "max", "errors", "in service");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            System.out.printf("%6d %9.1f %9.2f %9.2f %9.2f %9.2f %7d %10.1f%s%n", result.users(), result.throughput(),
+                    result.p50(), result.p99(), result.p999(), result.max(), result.errors(), result.inService(),
+                    i == knee ? "  <- knee" : "");
+        }
+        if (knee < 0) {
+            System.out.println("\nNo knee: throughput was still growing at " + results.get(results.size() - 1).users() + " users");
+            return;
+        }
+        Result at = results.get(knee);
+        Result last = results.get(results.size() - 1);
+        System.out.printf("%nKnee at %d users: %.1f req/s with p99 %.2f ms. Up to %d users, throughput changes %.0f%% while p99 grows %.1fx%n",
+                at.users(), at.throughput(), at.p99(), last.users(), (last.throughput() / at.throughput() - 1) * 100,
+                last.p99() / at.p99());
+    }
+}
@@ -0,0 +1,178 @@
+import okhttp3.OkHttpClient;
+import org.HdrHistogram.Histogram;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// How the nested relationship routes cost as one parent gains related entities. For each route a fresh server
+// gets a single parent, whose degree is grown step by step (POST /todos/:id/categories {title} creates the
+// category and the link together); at each degree the listing is timed, and so are unlinking a random member
+// (DELETE /todos/:id/categories/:id) and linking it straight back (POST /todos/:id/categories {id}), which
+// keeps the degree where it is. A listing grows with what it returns; a link or unlink that grows with the
+// degree is an O(n) lookup, and is flagged.
+//   todomanager.fanout.routes=todos/categories,projects/tasks,categories/projects,todos/tasksof
+//   todomanager.fanout.degrees=1,10,100,1000,10000,100000
+//   todomanager.fanout.samples=20      timed calls per operation and degree, after 3 untimed ones
+//   todomanager.fanout.budget=20s      stop sampling a degree after this long, with at least 3 samples
+// Every measurement is written to target/load/fanout-<time>.csv.
+public class FanOutBenchmark {
+
+    static final String ROUTES = System.getProperty("todomanager.fanout.routes", "todos/categories,projects/tasks,categories/projects,todos/tasksof");
+    static final String DEGREES = System.getProperty("todomanager.fanout.degrees", "1,10,100,1000,10000,100000");
+    static final int SAMPLES = Integer.getInteger("todomanager.fanout.samples", 20);
+    static final long BUDGET_NANOS = LoadTest.duration("todomanager.fanout.budget", "20s").toNanos();
+
+    // a link or unlink whose latency grows faster than n^0.25 with the degree is not a constant-time lookup
+    private static final double LINK_TOLERANCE = 0.25;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MIN_SAMPLES = 3;
+
+    public record Measurement(String route, String operation, int degree, int samples, double p50, double p99) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> degrees = new ArrayList<>();
+        for (String degree : DEGREES.split(",")) {
+            degrees.add(Integer.parseInt(degree.trim()));
+        }
+        List<Measurement> measurements = new ArrayList<>();
+        for (String route : ROUTES.split(",")) {
+            String[] parts = route.trim().split("/");
+            // one server per route, so the entities one route piles up do not slow the next
+            try (LoadTarget target = LoadTarget.open(0)) {
+                OkHttpClient http = target.http().newBuilder().readTimeout(5, TimeUnit.MINUTES).build();
+                measurements.addAll(run(new TodoManagerClient(http, target.baseUrl()), parts[0], parts[1], degrees));
+            }
+        }
+        print(measurements);
+        Path csv = Paths.get("target", "load", "fanout-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        writeCsv(measurements, csv);
+        System.out.println("Measurements: " + csv);
+    }
+
+    static List<Measurement> run(TodoManagerClient client, String type, String relationship, List<Integer> degrees) {
+        String parent = id(client.create(type, fields("title", "fan-out parent")));
+        String route = "/" + type + "/:id/" + relationship;
+        System.out.printf("%s on %s %s%n", route, type, parent);
+        List<String> members = new ArrayList<>();
+        List<Measurement> measurements = new ArrayList<>();
+        for (int degree : degrees) {
+            long seeding = System.nanoTime();
+            // one call at a time: concurrent changes to one relationship end in a ConcurrentModificationException
+            while (members.size() < degree) {
+                members.add(id(client.createRelated(type, parent, relationship, fields("title", "fan-out " + members.size()))));
+            }
+            System.out.printf("  degree %d (grown in %.1fs)%n", degree, (System.nanoTime() - seeding) / 1e9);
+            measurements.addAll(measure(client, route, type, parent, relationship, members, degree));
+        }
+        return measurements;
+    }
+
+    private static List<Measurement> measure(TodoManagerClient client, String route, String type, String parent,
+                                             String relationship, List<String> members, int degree) {
+        Histogram list = histogram();
+        Histogram unlink = histogram();
+        Histogram link = histogram();
+        Random random = new Random(degree);
+        long start = System.nanoTime();
+        for (int round = 0; round < WARMUP_ROUNDS + SAMPLES; round++) {
+            if (round >= WARMUP_ROUNDS + MIN_SAMPLES && System.nanoTime() - start > BUDGET_NANOS) {
+                break;
+            }
+            boolean timed = round >= WARMUP_ROUNDS;
+            record(timed, list, check(client.related(type, parent, relationship)));
+            String member = members.get(random.nextInt(members.size()));
+            record(timed, unlink, check(client.unlink(type, parent, relationship, member)));
+            record(timed, link, check(client.link(type, parent, relationship, member)));
+        }
+        List<Measurement> measurements = List.of(
+                measurement(route, "GET", degree, list),
+                measurement(route, "DELETE /:id", degree, unlink),
+                measurement(route, "POST {id}", degree, link));
+        for (Measurement measurement : measurements) {
+            System.out.printf("    %-12s p50 %9.2f ms  p99 %9.2f ms%n", measurement.operation(), measurement.p50(), measurement.p99());
+        }
+        return measurements;
+    }
+
+    private static Histogram histogram() {
+        return new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.SIGNIFICANT_DIGITS);
+    }
+
+    private static void record(boolean timed, Histogram histogram, ApiResponse response) {
+        if (timed) {
+            histogram.recordValue(Math.min(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, response.elapsedNanos() / 1000));
+        }
+    }
+
+    private static Measurement measurement(String route, String operation, int degree, Histogram latency) {
+        return new Measurement(route, operation, degree, (int) latency.getTotalCount(),
+                LatencyRecorder.millis(latency.getValueAtPercentile(50)), LatencyRecorder.millis(latency.getValueAtPercentile(99)));
+    }
+
+    private static ApiResponse check(ApiResponse response) {
+        if (!response.isSuccessful()) {
+            throw new IllegalStateException(response + " " + response.body());
+        }
+        return response;
+    }
+
+    private static String id(ApiResponse created) {
+        return (String) check(created).json().get("id");
+    }
+
+    private static JSONObject fields(String name, String value) {
+        JSONObject body = new JSONObject();
+        body.put(name, value);
+        return body;
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    static void print(List<Measurement> measurements) {
+        System.out.printf("%n%-32s %-12s %14s %-12s%n", "route", "operation", "latency ~n^k", "growth");
+        List<String> flagged = new ArrayList<>();
+        List<String> seen = new ArrayList<>();
+        for (Measurement first : measurements) {
+            String key = first.route() + " " + first.operation();
+            if (seen.contains(key)) {
+                continue;
+            }
+            seen.add(key);
+            List<Measurement> series = measurements.stream()
+                    .filter(measurement -> measurement.route().equals(first.route()) && measurement.operation().equals(first.operation()))
+                    .toList();
+            double exponent = GrowthFit.exponent(series.stream().map(Measurement::degree).toList(), series.stream().map(Measurement::p50).toList());
+            // a listing is expected to grow with its degree; a link or unlink is not
+            boolean linear = !first.operation().equals("GET") && exponent > LINK_TOLERANCE;
+            System.out.printf("%-32s %-12s %14.2f %-12s%s%n", first.route(), first.operation(), exponent, GrowthFit.growth(exponent),
+                    linear ? "  <- grows with the degree" : "");
+            if (linear) {
+                flagged.add(first.operation().split(" ")[0] + " " + first.route() + (first.operation().contains("/:id") ? "/:id" : ""));
+            }
+        }
+        System.out.println(flagged.isEmpty() ? "\nNo link or unlink grows with the degree"
+                : "\nLink lookups that grow with the degree: " + String.join(", ", flagged));
+    }
+
+    static void writeCsv(List<Measurement> measurements, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            out.println("route,operation,degree,samples,p50_ms,p99_ms");
+            for (Measurement measurement : measurements) {
+                out.printf("%s,%s,%d,%d,%.3f,%.3f%n", measurement.route(), measurement.operation(), measurement.degree(),
+                        measurement.samples(), measurement.p50(), measurement.p99());
+            }
+        }
+    }
+}
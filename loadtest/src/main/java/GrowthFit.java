@@ -0,0 +1,52 @@
+import java.util.List;
+
+// The exponent k of cost ~ n^k, from a least-squares line through log(cost) against log(n). Fitted over the
+// larger half of the sizes (at least two), where the fixed cost of a request no longer hides the rest.
+public final class GrowthFit {
+
+    private GrowthFit() {
+    }
+
+    public static double exponent(List<? extends Number> sizes, List<? extends Number> costs) {
+        int from = Math.max(0, Math.min(sizes.size() - 2, sizes.size() / 2));
+        if (sizes.size() - from < 2) {
+            return 0;
+        }
+        int points = sizes.size() - from;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = from; i < sizes.size(); i++) {
+            meanX += x(sizes.get(i));
+            meanY += y(costs.get(i));
+        }
+        meanX /= points;
+        meanY /= points;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = from; i < sizes.size(); i++) {
+            double x = x(sizes.get(i)) - meanX;
+            covariance += x * (y(costs.get(i)) - meanY);
+            variance += x * x;
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    private static double x(Number size) {
+        return Math.log(size.doubleValue());
+    }
+
+    // an empty answer (HEAD) or an unmeasurably fast one counts as one unit, so it reads as constant
+    private static double y(Number cost) {
+        return Math.log(Math.max(cost.doubleValue(), 1e-3));
+    }
+
+    public static String growth(double exponent) {
+        if (exponent < 0.25) {
+            return "constant";
+        }
+        if (exponent < 0.75) {
+            return "sublinear";
+        }
+        return exponent < 1.25 ? "linear" : "superlinear";
+    }
+}
@@ -0,0 +1,112 @@
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency per route in HdrHistograms, in microseconds. Response time runs from when a request was due to be
+// sent, not from when it went out: if the server stalls (or the generator falls behind), the requests that
+// should have been sent in the meantime count the stall in full, instead of quietly never being sent. That is
+// the coordinated-omission correction; service time, from the actual send, is kept next to it so the gap
+// between the two shows how much of the latency was queueing.
+public class LatencyRecorder {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final class RouteStats {
+        final Histogram response = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public void record(String route, long intendedNanos, long sentNanos, long doneNanos, boolean failed) {
+        RouteStats stats = routes.computeIfAbsent(route, name -> new RouteStats());
+        stats.response.recordValue(micros(doneNanos - intendedNanos));
+        stats.service.recordValue(micros(doneNanos - sentNanos));
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    // a closed-model call, sent as soon as it was due: response and service time are the same
+    public void record(String route, long elapsedNanos, boolean failed) {
+        long now = System.nanoTime();
+        record(route, now - elapsedNanos, now - elapsedNanos, now, failed);
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, nanos / 1000));
+    }
+
+    public long count() {
+        return total().getTotalCount();
+    }
+
+    public long errors() {
+        long errors = 0;
+        for (RouteStats stats : routes.values()) {
+            errors += stats.errors.sum();
+        }
+        return errors;
+    }
+
+    // response times of all routes together
+    public Histogram total() {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        for (RouteStats stats : routes.values()) {
+            total.add(stats.response);
+        }
+        return total;
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    // one line per route and a total, latencies in milliseconds
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-32s %8s %7s %9s %9s %9s %9s %9s %12s%n",
+                "route", "count", "errors", "req/s", "p50", "p99", "p99.9", "max", "service p99");
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        Histogram totalService = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        long errors = 0;
+        for (Map.Entry<String, RouteStats> route : new TreeMap<>(routes).entrySet()) {
+            RouteStats stats = route.getValue();
+            print(out, route.getKey(), stats.response, stats.service, stats.errors.sum(), seconds);
+            total.add(stats.response);
+            totalService.add(stats.service);
+            errors += stats.errors.sum();
+        }
+        print(out, "all", total, totalService, errors, seconds);
+    }
+
+    private static void print(PrintStream out, String route, Histogram response, Histogram service, long errors, double seconds) {
+        out.printf("%-32s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %12.2f%n", route, response.getTotalCount(), errors,
+                response.getTotalCount() / seconds, millis(response.getValueAtPercentile(50)),
+                millis(response.getValueAtPercentile(99)), millis(response.getValueAtPercentile(99.9)),
+                millis(response.getMaxValue()), millis(service.getValueAtPercentile(99)));
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    // the full response-time distribution of each route as .hgrm, for plotting or comparing runs
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, RouteStats> route : routes.entrySet()) {
+            String name = route.getKey().replace(":id", "id").replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name)))) {
+                route.getValue().response.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import okhttp3.OkHttpClient;
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The server under load: one started through the harness launcher on a free port (forked, or in-process with
+// -Dtodomanager.hosting=in-process), or an already running one given by -Dtodomanager.load.url.
+// todomanager.load.seed=N creates N todos, projects and categories up front, so reads and relationship
+// routes do not only see the handful of entities the server boots with.
+public class LoadTarget implements AutoCloseable {
+
+    static final String URL = System.getProperty("todomanager.load.url");
+    static final int SEED = Integer.getInteger("todomanager.load.seed", 100);
+
+    private final TodoManagerServer server;
+    private final String baseUrl;
+    private final OkHttpClient http;
+    private final TodoManagerClient client;
+
+    private LoadTarget(TodoManagerServer server, String baseUrl) {
+        this.server = server;
+        this.baseUrl = baseUrl;
+        this.http = TodoManagerClient.pooledClientBuilder().build();
+        this.client = new TodoManagerClient(http, baseUrl);
+    }
+
+    public static LoadTarget open() {
+        return open(SEED);
+    }
+
+    // a mode that builds its own data set asks for no seed
+    public static LoadTarget open(int seed) {
+        if (URL != null) {
+            return new LoadTarget(null, URL);
+        }
+        TodoManagerServer server = TodoManagerServer.create(TodoManagerServerPool.freePort());
+        server.start();
+        LoadTarget target = new LoadTarget(server, "http://localhost:" + server.getPort());
+        target.seed(seed);
+        return target;
+    }
+
+    private void seed(int count) {
+        if (count <= 0) {
+            return;
+        }
+        try (BulkOperations bulk = new BulkOperations(client)) {
+            for (String type : ServerStateReset.ENTITY_TYPES) {
+                List<JSONObject> entities = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    JSONObject entity = new JSONObject();
+                    entity.put("title", "load " + type + " " + i);
+                    entities.add(entity);
+                }
+                bulk.seed(type, entities);
+            }
+        }
+    }
+
+    // null when the load goes to a server given by url
+    public TodoManagerServer server() {
+        return server;
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public OkHttpClient http() {
+        return http;
+    }
+
+    public TodoManagerClient client() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop();
+        }
+        http.connectionPool().evictAll();
+        http.dispatcher().executorService().shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+import java.time.Duration;
+import java.util.Arrays;
+
+// Entry point of the load-test jar: java [-Dsetting=value ...] -jar loadtest/target/loadtest.jar <mode>
+//   open   a constant arrival rate with a weighted request mix (OpenModelLoad)
+//   sweep  closed-model steps of 1, 2, 4 ... virtual users, to find where throughput stops growing (ConcurrencySweep)
+//   scaling  list and lookup latency against 10^2 ... 10^5 todos, with fitted growth (ScalingBenchmark)
+//   soak     hours of create/link/delete churn while the server's heap and RSS are sampled (SoakTest)
+//   fanout   relationship listing, link and unlink latency as one parent gains 1 ... 100k related entities (FanOutBenchmark)
+//   replay   a traffic log written with -Dtodomanager.record, re-issued at 1x, 10x or max speed (TrafficReplay)
+// Settings are system properties; see the class of each mode.
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "open";
+        String[] rest = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+        switch (mode) {
+            case "open" -> OpenModelLoad.main(rest);
+            case "sweep" -> ConcurrencySweep.main(rest);
+            case "scaling" -> ScalingBenchmark.main(rest);
+            case "soak" -> SoakTest.main(rest);
+            case "fanout" -> FanOutBenchmark.main(rest);
+            case "replay" -> TrafficReplay.main(rest);
+            default -> {
+                System.err.println("Unknown mode '" + mode + "'. Modes: open, sweep, scaling, soak, fanout, replay");
+                System.exit(2);
+            }
+        }
+    }
+
+    // 500ms, 30s, 2m or 1h
+    static Duration duration(String property, String defaultValue) {
+        String text = System.getProperty(property, defaultValue).trim();
+        int unit = 0;
+        while (unit < text.length() && Character.isDigit(text.charAt(unit))) {
+            unit++;
+        }
+        long amount = Long.parseLong(text.substring(0, unit));
+        return switch (text.substring(unit)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s", "" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException(property + ": cannot read '" + text + "' as a duration");
+        };
+    }
+
+    // 512k, 64m or 2g, in bytes
+    static long bytes(String property, String defaultValue) {
+        String text = System.getProperty(property, defaultValue).trim().toLowerCase();
+        long amount = Long.parseLong(text.replaceAll("[kmg]$", ""));
+        return switch (text.charAt(text.length() - 1)) {
+            case 'k' -> amount << 10;
+            case 'm' -> amount << 20;
+            case 'g' -> amount << 30;
+            default -> amount;
+        };
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Heap and resident memory of the server's JVM. A forked server is asked through jcmd (GC.heap_info sums the
+// "total ..K, used ..K" line of each heap generation), an in-process one through the memory MXBean; RSS comes
+// from /proc, so it is -1 off Linux. With a full GC before each sample, heap used is the live set, which only
+// grows if something is kept.
+public class MemorySampler {
+
+    public record Sample(long heapUsed, long heapCommitted, long rss) {
+    }
+
+    private static final Pattern GENERATION = Pattern.compile("total (\\d+)K, used (\\d+)K");
+    private static final Pattern VM_RSS = Pattern.compile("VmRSS:\\s+(\\d+) kB");
+    private static final long JCMD_TIMEOUT_SECONDS = 30;
+
+    private final long pid;
+    private final boolean forceGc;
+    private final boolean self;
+
+    public MemorySampler(long pid, boolean forceGc) {
+        this.pid = pid;
+        this.forceGc = forceGc;
+        this.self = pid == ProcessHandle.current().pid();
+    }
+
+    public Sample sample() throws IOException, InterruptedException {
+        long heapUsed;
+        long heapCommitted;
+        if (self) {
+            if (forceGc) {
+                System.gc();
+            }
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            heapUsed = heap.getUsed();
+            heapCommitted = heap.getCommitted();
+        } else {
+            if (forceGc) {
+                jcmd("GC.run");
+            }
+            heapUsed = 0;
+            heapCommitted = 0;
+            Matcher generation = GENERATION.matcher(jcmd("GC.heap_info"));
+            boolean found = false;
+            while (generation.find()) {
+                heapCommitted += Long.parseLong(generation.group(1)) * 1024;
+                heapUsed += Long.parseLong(generation.group(2)) * 1024;
+                found = true;
+            }
+            if (!found) {
+                // ZGC and Shenandoah report their heap in another shape
+                heapUsed = -1;
+                heapCommitted = -1;
+            }
+        }
+        return new Sample(heapUsed, heapCommitted, rss());
+    }
+
+    // the output goes to a file rather than a pipe, so a jcmd that hangs is still cut off by the timeout
+    private String jcmd(String command) throws IOException, InterruptedException {
+        Path jcmd = Paths.get(System.getProperty("java.home"), "bin", "jcmd");
+        Path output = Files.createTempFile("jcmd-" + pid + "-", ".txt");
+        try {
+            Process process = new ProcessBuilder(List.of(jcmd.toString(), String.valueOf(pid), command))
+                    .redirectErrorStream(true).redirectOutput(output.toFile()).start();
+            if (!process.waitFor(JCMD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("jcmd " + pid + " " + command + " did not answer within " + JCMD_TIMEOUT_SECONDS + "s");
+            }
+            String text = Files.readString(output, StandardCharsets.UTF_8);
+            if (process.exitValue() != 0) {
+                throw new IOException("jcmd " + pid + " " + command + " failed: " + text);
+            }
+            return text;
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private long rss() throws IOException {
+        Path status = Paths.get("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        Matcher rss = VM_RSS.matcher(Files.readString(status));
+        return rss.find() ? Long.parseLong(rss.group(1)) * 1024 : -1;
+    }
+}
@@ -0,0 +1,126 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: requests go out on a fixed schedule at the configured rate whether or not earlier ones have
+// been answered, the way independent users arrive. Each request's latency is measured from its slot in the
+// schedule (see LatencyRecorder), so a slow server cannot lower the load it is measured under.
+//   todomanager.load.rate=200          requests per second
+//   todomanager.load.duration=30s      measured time, after todomanager.load.warmup=10s
+//   todomanager.load.arrivals=uniform  or poisson, exponential gaps with the same mean
+//   todomanager.load.mix=...           see Workload
+//   todomanager.load.maxInFlight=1024  calls outstanding before the generator itself has to wait
+// Histograms are written to target/load/open-<time>/.
+public class OpenModelLoad {
+
+    static final double RATE = Double.parseDouble(System.getProperty("todomanager.load.rate", "200"));
+    static final Duration DURATION = LoadTest.duration("todomanager.load.duration", "30s");
+    static final Duration WARMUP = LoadTest.duration("todomanager.load.warmup", "10s");
+    static final String ARRIVALS = System.getProperty("todomanager.load.arrivals", "uniform");
+    static final String MIX = System.getProperty("todomanager.load.mix", Workload.DEFAULT_MIX);
+    static final int MAX_IN_FLIGHT = Integer.getInteger("todomanager.load.maxInFlight", 1024);
+    static final long RANDOM_SEED = Long.getLong("todomanager.load.randomSeed", 429);
+
+    // a send this far behind its slot means the generator, not only the server, is falling behind
+    private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final AsyncTodoManagerClient client;
+    private final Workload workload;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private long lateSends;
+
+    public OpenModelLoad(AsyncTodoManagerClient client, Workload workload) {
+        this.client = client;
+        this.workload = workload;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (LoadTarget target = LoadTarget.open();
+             AsyncTodoManagerClient client = new AsyncTodoManagerClient(target.http(), target.baseUrl(), MAX_IN_FLIGHT, MAX_IN_FLIGHT)) {
+            Workload workload = new Workload(Workload.mix(MIX), target.client());
+            System.out.printf("Open model: %.0f req/s (%s arrivals) for %ds after %ds warmup against %s%n",
+                    RATE, ARRIVALS, DURATION.toSeconds(), WARMUP.toSeconds(), target.baseUrl());
+            OpenModelLoad load = new OpenModelLoad(client, workload);
+            load.run(RATE, WARMUP, DURATION);
+            load.recorder.print(System.out, DURATION.toNanos() / 1e9);
+            if (load.lateSends > 0) {
+                System.out.printf("%d sends left more than 1ms after their slot; the generator or host could not keep the schedule (their latency still counts from the slot)%n", load.lateSends);
+            }
+            Path histograms = Paths.get("target", "load", "open-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            load.recorder.writeHistograms(histograms);
+            System.out.println("Histograms: " + histograms);
+        }
+    }
+
+    public LatencyRecorder recorder() {
+        return recorder;
+    }
+
+    public void run(double rate, Duration warmup, Duration duration) {
+        Random random = new Random(RANDOM_SEED);
+        boolean poisson = ARRIVALS.equals("poisson");
+        double meanGapNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        // slots are computed from the start, so rounding and late sends never shift the schedule
+        double offset = 0;
+        while (true) {
+            long intended = start + (long) offset;
+            if (intended >= end) {
+                break;
+            }
+            long now = System.nanoTime();
+            while (now < intended) {
+                LockSupport.parkNanos(intended - now);
+                now = System.nanoTime();
+            }
+            if (now - intended > LATE_NANOS && intended >= measureFrom) {
+                lateSends++;
+            }
+            send(workload.next(random), intended, intended >= measureFrom);
+            offset += poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+        drain();
+    }
+
+    private void send(Workload.Call call, long intended, boolean measured) {
+        outstanding.incrementAndGet();
+        long sent = System.nanoTime();
+        CompletableFuture<ApiResponse> response = switch (call.method()) {
+            case "GET" -> client.get(call.path());
+            case "POST" -> client.post(call.path(), call.body());
+            case "PUT" -> client.put(call.path(), call.body());
+            default -> client.delete(call.path());
+        };
+        response.whenComplete((answer, failure) -> {
+            long done = System.nanoTime();
+            if (measured) {
+                recorder.record(call.route(), intended, sent, done, failure != null || !answer.isSuccessful());
+            }
+            if (answer != null) {
+                workload.completed(call, answer);
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (outstanding.get() > 0) {
+            System.out.println(outstanding.get() + " requests still unanswered after 30s are left out of the report");
+        }
+    }
+}
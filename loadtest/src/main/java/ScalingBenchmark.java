@@ -0,0 +1,173 @@
+import okhttp3.OkHttpClient;
+import org.HdrHistogram.Histogram;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// How the list and lookup endpoints cost as the data set grows. Todos are seeded through one category
+// (POST /categories/:id/todos creates the todo and the link together) up to each size in turn, and every
+// endpoint is timed at each size along with the size of its answer. A power law cost ~ n^k is then fitted to
+// the larger sizes (GrowthFit), for latency and for payload alike: an endpoint whose latency exponent clearly
+// exceeds its payload's does more work than it returns.
+//   todomanager.scaling.sizes=100,1000,10000,100000
+//   todomanager.scaling.samples=20     timed calls per endpoint and size, after 3 untimed ones
+//   todomanager.scaling.budget=20s     stop sampling an endpoint after this long, with at least 3 samples
+//   todomanager.scaling.tolerance=0.25 how far the latency exponent may exceed the payload exponent
+// 1000000 can be added to the sizes, but every create costs the server time in proportion to the todos it
+// already holds, so seeding it takes hours (and a heap like -Dtodomanager.startup.heap=4g).
+// Every measurement is written to target/load/scaling-<time>.csv.
+public class ScalingBenchmark {
+
+    static final String SIZES = System.getProperty("todomanager.scaling.sizes", "100,1000,10000,100000");
+    static final int SAMPLES = Integer.getInteger("todomanager.scaling.samples", 20);
+    static final long BUDGET_NANOS = LoadTest.duration("todomanager.scaling.budget", "20s").toNanos();
+    static final double TOLERANCE = Double.parseDouble(System.getProperty("todomanager.scaling.tolerance", "0.25"));
+
+    private static final int WARMUP_CALLS = 3;
+    private static final int MIN_SAMPLES = 3;
+
+    public record Measurement(String endpoint, int size, int samples, double p50, double p99, long bytes) {
+    }
+
+    public record Fit(String endpoint, double latencyExponent, double payloadExponent) {
+        String growth() {
+            return GrowthFit.growth(latencyExponent);
+        }
+
+        boolean outgrowsPayload() {
+            return latencyExponent >= 0.25 && latencyExponent - payloadExponent > TOLERANCE;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : SIZES.split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+        List<Measurement> measurements = new ArrayList<>();
+        try (LoadTarget target = LoadTarget.open(0)) {
+            // listings of a million todos take a while to write and read
+            OkHttpClient http = target.http().newBuilder().readTimeout(5, TimeUnit.MINUTES).build();
+            TodoManagerClient client = new TodoManagerClient(http, target.baseUrl());
+            String category = (String) client.createCategory(fields("title", "scaling")).json().get("id");
+            List<String> todoIds = new ArrayList<>();
+            Map<String, Function<Random, ApiResponse>> endpoints = new LinkedHashMap<>();
+            endpoints.put("GET /todos", random -> client.todos());
+            endpoints.put("GET /todos/:id", random -> client.todo(todoIds.get(random.nextInt(todoIds.size()))));
+            endpoints.put("HEAD /todos", random -> client.head("todos"));
+            endpoints.put("GET /categories/:id/todos", random -> client.categoryTodos(category));
+            System.out.printf("Scaling: %s todos in category %s against %s%n", sizes, category, target.baseUrl());
+            for (int size : sizes) {
+                long seeding = System.nanoTime();
+                seed(client, category, todoIds, size);
+                System.out.printf("  %d todos (seeded in %.1fs)%n", size, (System.nanoTime() - seeding) / 1e9);
+                for (Map.Entry<String, Function<Random, ApiResponse>> endpoint : endpoints.entrySet()) {
+                    Measurement measurement = measure(endpoint.getKey(), size, endpoint.getValue());
+                    measurements.add(measurement);
+                    System.out.printf("    %-26s p50 %9.2f ms  p99 %9.2f ms  %12d bytes%n",
+                            measurement.endpoint(), measurement.p50(), measurement.p99(), measurement.bytes());
+                }
+            }
+        }
+        print(measurements);
+        Path csv = Paths.get("target", "load", "scaling-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        writeCsv(measurements, csv);
+        System.out.println("Measurements: " + csv);
+    }
+
+    // grows the category's todos from the current count to the size. One call at a time: the server answers
+    // concurrent changes to one entity's relationship with a ConcurrentModificationException
+    private static void seed(TodoManagerClient client, String category, List<String> todoIds, int size) {
+        while (todoIds.size() < size) {
+            ApiResponse created = client.createRelated("categories", category, "todos", fields("title", "scaling " + todoIds.size()));
+            if (created.code() != 201) {
+                throw new IllegalStateException("Seeding failed at " + todoIds.size() + " todos: " + created + " " + created.body());
+            }
+            todoIds.add((String) created.json().get("id"));
+        }
+    }
+
+    private static Measurement measure(String endpoint, int size, Function<Random, ApiResponse> call) {
+        Random random = new Random(size);
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            check(endpoint, call.apply(random));
+        }
+        Histogram latency = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.SIGNIFICANT_DIGITS);
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (latency.getTotalCount() < SAMPLES
+                && (latency.getTotalCount() < MIN_SAMPLES || System.nanoTime() - start < BUDGET_NANOS)) {
+            ApiResponse response = check(endpoint, call.apply(random));
+            latency.recordValue(Math.min(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, response.elapsedNanos() / 1000));
+            bytes = Math.max(bytes, response.body().length());
+        }
+        return new Measurement(endpoint, size, (int) latency.getTotalCount(), LatencyRecorder.millis(latency.getValueAtPercentile(50)),
+                LatencyRecorder.millis(latency.getValueAtPercentile(99)), bytes);
+    }
+
+    private static ApiResponse check(String endpoint, ApiResponse response) {
+        if (!response.isSuccessful()) {
+            throw new IllegalStateException(endpoint + " failed: " + response);
+        }
+        return response;
+    }
+
+    private static JSONObject fields(String name, String value) {
+        JSONObject body = new JSONObject();
+        body.put(name, value);
+        return body;
+    }
+
+    //----------------------------------------------------------- fit -----------------------------------------------------------//
+
+    static Fit fit(String endpoint, List<Measurement> measurements) {
+        List<Integer> sizes = measurements.stream().map(Measurement::size).toList();
+        return new Fit(endpoint, GrowthFit.exponent(sizes, measurements.stream().map(Measurement::p50).toList()),
+                GrowthFit.exponent(sizes, measurements.stream().map(Measurement::bytes).toList()));
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    static void print(List<Measurement> measurements) {
+        Map<String, List<Measurement>> byEndpoint = new LinkedHashMap<>();
+        for (Measurement measurement : measurements) {
+            byEndpoint.computeIfAbsent(measurement.endpoint(), name -> new ArrayList<>()).add(measurement);
+        }
+        System.out.printf("%n%-26s %14s %14s %-12s%n", "endpoint", "latency ~n^k", "payload ~n^k", "growth");
+        List<String> flagged = new ArrayList<>();
+        for (Map.Entry<String, List<Measurement>> endpoint : byEndpoint.entrySet()) {
+            Fit fit = fit(endpoint.getKey(), endpoint.getValue());
+            System.out.printf("%-26s %14.2f %14.2f %-12s%s%n", fit.endpoint(), fit.latencyExponent(), fit.payloadExponent(),
+                    fit.growth(), fit.outgrowsPayload() ? "  <- grows faster than its payload" : "");
+            if (fit.outgrowsPayload()) {
+                flagged.add(fit.endpoint());
+            }
+        }
+        System.out.println(flagged.isEmpty() ? "\nNo endpoint grows faster than its payload"
+                : "\nFlagged: " + String.join(", ", flagged));
+    }
+
+    static void writeCsv(List<Measurement> measurements, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            out.println("endpoint,size,samples,p50_ms,p99_ms,bytes");
+            for (Measurement measurement : measurements) {
+                out.printf("%s,%d,%d,%.3f,%.3f,%d%n", measurement.endpoint(), measurement.size(), measurement.samples(),
+                        measurement.p50(), measurement.p99(), measurement.bytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+// Endurance run: one server, launched as the tests launch it, under steady churn for hours while its memory
+// is sampled. Every cycle of a user creates a todo, a project and a category, links them, amends and reads
+// them, and deletes all three again, so the data set stays at its starting size and whatever memory still
+// grows is held by the server for entities that no longer exist.
+//   todomanager.soak.duration=2h       todomanager.soak.interval=30s between samples
+//   todomanager.soak.users=8           concurrent users, each on entities of its own
+//   todomanager.soak.warmup=10m        samples before this are not judged (JIT, heap sizing)
+//   todomanager.soak.maxHeapGrowth=32m todomanager.soak.maxRssGrowth=128m
+//   todomanager.soak.forceGc=true      full GC before each sample, so heap used is the live set
+// The run fails (exit code 1) when heap or RSS drifts: the lowest sample of each quarter of the judged run is
+// above that of the quarter before, and the last quarter's exceeds the first's by more than the allowed growth.
+// The samples are written to target/load/soak-<time>.csv as they are taken.
+public class SoakTest {
+
+    static final Duration DURATION = LoadTest.duration("todomanager.soak.duration", "2h");
+    static final Duration INTERVAL = LoadTest.duration("todomanager.soak.interval", "30s");
+    static final Duration WARMUP = LoadTest.duration("todomanager.soak.warmup", "10m");
+    static final int USERS = Integer.getInteger("todomanager.soak.users", 8);
+    static final long MAX_HEAP_GROWTH = LoadTest.bytes("todomanager.soak.maxHeapGrowth", "32m");
+    static final long MAX_RSS_GROWTH = LoadTest.bytes("todomanager.soak.maxRssGrowth", "128m");
+    static final boolean FORCE_GC = Boolean.parseBoolean(System.getProperty("todomanager.soak.forceGc", "true"));
+
+    private static final int QUARTERS = 4;
+    private static final int MIN_JUDGED_SAMPLES = 8;
+
+    public record Point(double seconds, long operations, long errors, long entities, MemorySampler.Sample memory) {
+    }
+
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        boolean drifted;
+        try (LoadTarget target = LoadTarget.open(0)) {
+            if (target.server() == null) {
+                throw new IllegalStateException("The soak test samples the memory of a server it launched itself; unset todomanager.load.url");
+            }
+            System.out.printf("Soak: %d users for %s, sampling every %ds against %s (pid %d)%n",
+                    USERS, DURATION, INTERVAL.toSeconds(), target.baseUrl(), target.server().pid());
+            Path csv = Paths.get("target", "load", "soak-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+            List<Point> points = new SoakTest().run(target, new MemorySampler(target.server().pid(), FORCE_GC), csv);
+            System.out.println("Samples: " + csv);
+            drifted = judge(points);
+        }
+        if (drifted) {
+            System.exit(1);
+        }
+    }
+
+    public List<Point> run(LoadTarget target, MemorySampler sampler, Path csv) throws IOException, InterruptedException {
+        TodoManagerClient client = target.client();
+        long start = System.nanoTime();
+        long end = start + DURATION.toNanos();
+        List<Thread> users = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    try {
+                        cycle(client);
+                    } catch (IllegalStateException e) {
+                        // a failed create, already counted; the cycle starts over
+                    } catch (RuntimeException e) {
+                        // the call itself failed: connection refused or timed out
+                        errors.incrementAndGet();
+                    }
+                }
+            }, "soak-user-" + user);
+            users.add(thread);
+            thread.start();
+        }
+        List<Point> points = new ArrayList<>();
+        Files.createDirectories(csv.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(csv), true)) {
+            out.println("seconds,operations,errors,entities,heap_used,heap_committed,rss");
+            long next = start;
+            while (next <= end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                Point point = new Point((System.nanoTime() - start) / 1e9, operations.get(), errors.get(), entities(client), sampler.sample());
+                points.add(point);
+                out.printf("%.1f,%d,%d,%d,%d,%d,%d%n", point.seconds(), point.operations(), point.errors(), point.entities(),
+                        point.memory().heapUsed(), point.memory().heapCommitted(), point.memory().rss());
+                System.out.printf("  %7.0fs %10d ops %6d errors %5d entities  heap %7.1f MB  rss %7.1f MB%n", point.seconds(),
+                        point.operations(), point.errors(), point.entities(), megabytes(point.memory().heapUsed()),
+                        megabytes(point.memory().rss()));
+                next += INTERVAL.toNanos();
+            }
+        }
+        for (Thread user : users) {
+            user.join();
+        }
+        return points;
+    }
+
+    //----------------------------------------------------------- churn -----------------------------------------------------------//
+
+    private void cycle(TodoManagerClient client) {
+        String todo = created(client.createTodo(fields("title", "soak")));
+        String project = created(client.createProject(fields("title", "soak")));
+        String category = created(client.createCategory(fields("title", "soak")));
+        count(client.linkTodoCategory(todo, category));
+        count(client.linkProjectTask(project, todo));
+        count(client.linkProjectCategory(project, category));
+        count(client.amendTodo(todo, fields("description", "churned")));
+        count(client.amendProject(project, fields("description", "churned")));
+        count(client.projectTasks(project));
+        count(client.unlinkTodoCategory(todo, category));
+        count(client.deleteTodo(todo));
+        count(client.deleteProject(project));
+        count(client.deleteCategory(category));
+    }
+
+    private String created(ApiResponse response) {
+        count(response);
+        if (response.code() != 201) {
+            throw new IllegalStateException("Create failed: " + response);
+        }
+        return (String) response.json().get("id");
+    }
+
+    private void count(ApiResponse response) {
+        operations.incrementAndGet();
+        if (!response.isSuccessful()) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static long entities(TodoManagerClient client) {
+        return client.fetchTodos().size() + client.fetchProjects().size() + client.fetchCategories().size();
+    }
+
+    private static JSONObject fields(String name, String value) {
+        JSONObject body = new JSONObject();
+        body.put(name, value);
+        return body;
+    }
+
+    //----------------------------------------------------------- drift -----------------------------------------------------------//
+
+    static boolean judge(List<Point> points) {
+        List<Point> judged = points.stream().filter(point -> point.seconds() >= WARMUP.toSeconds()).toList();
+        if (judged.size() < MIN_JUDGED_SAMPLES) {
+            System.out.printf("Only %d samples after the %ds warmup; too short to judge drift%n", judged.size(), WARMUP.toSeconds());
+            return false;
+        }
+        Point first = points.get(0);
+        Point last = points.get(points.size() - 1);
+        if (last.entities() > first.entities() + 3L * USERS) {
+            System.out.printf("The server holds %d entities, up from %d: deletes are not taking effect%n", last.entities(), first.entities());
+        }
+        boolean heap = drifted("heap", judged, point -> point.memory().heapUsed(), MAX_HEAP_GROWTH);
+        boolean rss = drifted("rss", judged, point -> point.memory().rss(), MAX_RSS_GROWTH);
+        return heap || rss;
+    }
+
+    // quarter minima, because a sample can land mid-cycle or before the collector has caught up, but the floor only
+    // keeps rising if memory is kept
+    static boolean drifted(String name, List<Point> judged, ToLongFunction<Point> bytes, long maxGrowth) {
+        if (bytes.applyAsLong(judged.get(0)) < 0) {
+            System.out.println(name + ": not available, not judged");
+            return false;
+        }
+        long[] floors = new long[QUARTERS];
+        boolean rising = true;
+        for (int quarter = 0; quarter < QUARTERS; quarter++) {
+            List<Point> part = judged.subList(quarter * judged.size() / QUARTERS, (quarter + 1) * judged.size() / QUARTERS);
+            floors[quarter] = part.stream().mapToLong(bytes).min().orElseThrow();
+            rising &= quarter == 0 || floors[quarter] > floors[quarter - 1];
+        }
+        long growth = floors[QUARTERS - 1] - floors[0];
+        double hours = (judged.get(judged.size() - 1).seconds() - judged.get(0).seconds()) / 3600;
+        boolean drifted = rising && growth > maxGrowth;
+        System.out.printf("%s: quarter floors %.1f, %.1f, %.1f, %.1f MB; %+.1f MB (%+.1f MB/h over the judged run)%s%n", name,
+                megabytes(floors[0]), megabytes(floors[1]), megabytes(floors[2]), megabytes(floors[3]), megabytes(growth),
+                hours > 0 ? megabytes(growth) / hours : 0, drifted ? " FAIL: sustained growth above " + megabytes(maxGrowth) + " MB" : "");
+        return drifted;
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,201 @@
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Replays a log written by TrafficRecorder against a fresh server, each recorded stream (one per server the
+// recording talked to) on a thread of its own, todomanager.replay.copies times over. Within a stream the
+// recorded gaps are kept, divided by todomanager.replay.speed (1, 10, ...), or dropped with speed=max; latency
+// runs from when a request was due, as in OpenModelLoad. The ids a create was given in the recording are mapped
+// onto the ones the fresh server hands out, in paths and in relationship bodies, per stream.
+//   java -Dtodomanager.replay.speed=10 -jar loadtest/target/loadtest.jar replay target/traffic.log
+// Latency per route is reported with its "errors" counting answers whose status differs from the recording,
+// and the differences are listed as recorded -> replayed. Between tests the harness resets or restarts its
+// server, unrecorded; the replay keeps one server as the tests left it, so requests that counted on the seeded
+// data (a deleted entity, a link already made) can answer differently.
+public class TrafficReplay {
+
+    static final String LOG = System.getProperty("todomanager.replay.log", "target/traffic.log");
+    static final String SPEED = System.getProperty("todomanager.replay.speed", "1");
+    static final int COPIES = Integer.getInteger("todomanager.replay.copies", 1);
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern JSON_ID = Pattern.compile("(\"id\"\\s*:\\s*\"?)(\\d+)");
+    private static final Pattern XML_ID = Pattern.compile("(<id>)(\\d+)(?=</id>)");
+
+    private final TodoManagerClient client;
+    private final double speed;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Map<String, LongAdder> differences = new ConcurrentHashMap<>();
+
+    public TrafficReplay(TodoManagerClient client, double speed) {
+        this.client = client;
+        this.speed = speed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path log = Paths.get(args.length > 0 ? args[0] : LOG);
+        List<TrafficRecorder.Entry> entries = TrafficRecorder.read(log);
+        Map<Integer, List<TrafficRecorder.Entry>> streams = new LinkedHashMap<>();
+        for (TrafficRecorder.Entry entry : entries) {
+            streams.computeIfAbsent(entry.stream(), stream -> new ArrayList<>()).add(entry);
+        }
+        double speed = SPEED.equals("max") ? Double.POSITIVE_INFINITY : Double.parseDouble(SPEED);
+        try (LoadTarget target = LoadTarget.open(0)) {
+            OkHttpClient http = target.http().newBuilder().readTimeout(1, TimeUnit.MINUTES).build();
+            TrafficReplay replay = new TrafficReplay(new TodoManagerClient(http, target.baseUrl()), speed);
+            System.out.printf("Replaying %d requests in %d streams x %d at %s against %s%n",
+                    entries.size(), streams.size(), COPIES, SPEED.equals("max") ? "max speed" : SPEED + "x", target.baseUrl());
+            long start = System.nanoTime();
+            List<Thread> threads = new ArrayList<>();
+            for (int copy = 0; copy < COPIES; copy++) {
+                for (Map.Entry<Integer, List<TrafficRecorder.Entry>> stream : streams.entrySet()) {
+                    Thread thread = new Thread(() -> replay.stream(stream.getValue()), "replay-" + stream.getKey() + "-" + copy);
+                    threads.add(thread);
+                    thread.start();
+                }
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Took %.1fs; errors are answers whose status differs from the recording%n", seconds);
+            replay.recorder.print(System.out, seconds);
+            replay.printDifferences();
+            Path histograms = Paths.get("target", "load", "replay-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            replay.recorder.writeHistograms(histograms);
+            System.out.println("Histograms: " + histograms);
+        }
+    }
+
+    //----------------------------------------------------------- replay -----------------------------------------------------------//
+
+    void stream(List<TrafficRecorder.Entry> entries) {
+        // recorded "type/id" -> replayed id
+        Map<String, String> ids = new HashMap<>();
+        long due = System.nanoTime();
+        for (TrafficRecorder.Entry entry : entries) {
+            long sent;
+            if (Double.isInfinite(speed)) {
+                due = System.nanoTime();
+                sent = due;
+            } else {
+                due += (long) (entry.gapMicros() * 1000 / speed);
+                long now = System.nanoTime();
+                while (now < due) {
+                    LockSupport.parkNanos(due - now);
+                    now = System.nanoTime();
+                }
+                sent = now;
+            }
+            String route = route(entry.path());
+            String[] segments = segments(entry.path());
+            int status;
+            try {
+                ApiResponse response = client.send(request(entry, segments, ids));
+                status = response.code();
+                String recorded = entry.createdId();
+                String replayed = TrafficRecorder.createdId(entry.method(), Arrays.asList(segments), response.code(),
+                        response.contentType(), response.body().getBytes(StandardCharsets.UTF_8));
+                if (recorded != null && replayed != null) {
+                    ids.put(createdType(segments) + "/" + recorded, replayed);
+                }
+            } catch (RuntimeException e) {
+                status = -1;
+            }
+            boolean differs = status != entry.status();
+            recorder.record(entry.method() + " " + route, due, sent, System.nanoTime(), differs);
+            if (differs) {
+                differences.computeIfAbsent(entry.method() + " " + route + "  " + entry.status() + " -> "
+                        + (status < 0 ? "failed" : status), key -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    private Request request(TrafficRecorder.Entry entry, String[] segments, Map<String, String> ids) {
+        String path = mapPath(entry.path(), segments, ids);
+        RequestBody body = null;
+        boolean bodyless = entry.method().equals("GET") || entry.method().equals("HEAD");
+        // OkHttp insists on a body for these, even where the recording had none
+        boolean needsBody = entry.method().equals("POST") || entry.method().equals("PUT") || entry.method().equals("PATCH");
+        if ((entry.body().length > 0 && !bodyless) || needsBody) {
+            byte[] bytes = entry.body();
+            // a relationship body names the entity to link
+            if (segments.length == 3 && bytes.length > 0) {
+                bytes = mapBodyId(new String(bytes, StandardCharsets.UTF_8), TrafficRecorder.relatedType(segments[2]), ids)
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            body = RequestBody.create(bytes, entry.contentType() != null ? MediaType.parse(entry.contentType()) : null);
+        }
+        return new Request.Builder().url(client.resolve(path)).method(entry.method(), body).build();
+    }
+
+    // /projects/3/tasks/7: 3 is a project id, 7 a todo id
+    private static String mapPath(String path, String[] segments, Map<String, String> ids) {
+        String query = path.contains("?") ? path.substring(path.indexOf('?')) : "";
+        String[] mapped = segments.clone();
+        if (mapped.length >= 2) {
+            mapped[1] = ids.getOrDefault(mapped[0] + "/" + mapped[1], mapped[1]);
+        }
+        if (mapped.length >= 4) {
+            mapped[3] = ids.getOrDefault(TrafficRecorder.relatedType(mapped[2]) + "/" + mapped[3], mapped[3]);
+        }
+        return String.join("/", mapped) + query;
+    }
+
+    private static String mapBodyId(String body, String type, Map<String, String> ids) {
+        Matcher id = (body.trim().startsWith("<") ? XML_ID : JSON_ID).matcher(body);
+        StringBuilder mapped = new StringBuilder();
+        while (id.find()) {
+            id.appendReplacement(mapped, Matcher.quoteReplacement(id.group(1) + ids.getOrDefault(type + "/" + id.group(2), id.group(2))));
+        }
+        id.appendTail(mapped);
+        return mapped.toString();
+    }
+
+    private static String createdType(String[] segments) {
+        return segments.length == 1 ? segments[0] : TrafficRecorder.relatedType(segments[2]);
+    }
+
+    private static String[] segments(String path) {
+        String withoutQuery = path.contains("?") ? path.substring(0, path.indexOf('?')) : path;
+        return withoutQuery.replaceFirst("^/", "").split("/");
+    }
+
+    // ids become :id, so every todo's GET is reported together
+    static String route(String path) {
+        StringBuilder route = new StringBuilder();
+        for (String segment : segments(path)) {
+            route.append('/').append(NUMBER.matcher(segment).matches() ? ":id" : segment);
+        }
+        return route.toString();
+    }
+
+    private void printDifferences() {
+        if (differences.isEmpty()) {
+            System.out.println("Every status matches the recording");
+            return;
+        }
+        System.out.println("\nStatus differences (recorded -> replayed):");
+        new TreeMap<>(differences).forEach((difference, count) -> System.out.printf("  %6d  %s%n", count.sum(), difference));
+    }
+}
@@ -0,0 +1,184 @@
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A weighted mix of routes, each turned into a concrete call against ids that exist on the server. Routes are
+// written the way they are reported, "GET /todos/:id" or "POST /projects/:id/tasks", in
+//   todomanager.load.mix=GET /todos=15,GET /todos/:id=20,POST /todos=10,...
+// and read like the API: POST to a collection creates, POST or PUT to an entity amends or replaces it, POST to
+// a relationship links an existing entity of the related type, and DELETE removes an entity the load created
+// itself, so the seeded data set is not worn away.
+public class Workload {
+
+    static final String DEFAULT_MIX = String.join(",",
+            "GET /todos=10", "GET /todos/:id=15", "POST /todos=8", "POST /todos/:id=5", "DELETE /todos/:id=4",
+            "GET /projects=4", "GET /projects/:id=6", "POST /projects=3", "PUT /projects/:id=2",
+            "GET /categories=4", "GET /categories/:id=6", "POST /categories=3",
+            "GET /projects/:id/tasks=8", "POST /projects/:id/tasks=5",
+            "GET /todos/:id/categories=5", "POST /todos/:id/categories=4",
+            "GET /categories/:id/projects=4", "POST /categories/:id/projects=4");
+
+    private static final Map<String, String> RELATED_TYPES = Map.of(
+            "tasks", "todos", "tasksof", "projects", "categories", "categories", "todos", "todos", "projects", "projects");
+    private static final Pattern CREATED_ID = Pattern.compile("\"id\"\\s*:\\s*\"(\\d+)\"");
+
+    // one request as it is sent, and the route it is reported under
+    public record Call(String route, String method, String path, JSONObject body) {
+    }
+
+    private final String[] routes;
+    private final int[] cumulativeWeights;
+    private final Map<String, IdPool> live = new LinkedHashMap<>();
+    private final Map<String, IdPool> created = new LinkedHashMap<>();
+    private long sequence;
+
+    public Workload(Map<String, Integer> mix, TodoManagerClient client) {
+        routes = mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[routes.length];
+        int total = 0;
+        for (int i = 0; i < routes.length; i++) {
+            validate(routes[i]);
+            total += mix.get(routes[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix has no weight: " + mix);
+        }
+        for (String type : ServerStateReset.ENTITY_TYPES) {
+            live.put(type, new IdPool());
+            created.put(type, new IdPool());
+        }
+        client.fetchTodos().forEach(todo -> live.get("todos").add(todo.id()));
+        client.fetchProjects().forEach(project -> live.get("projects").add(project.id()));
+        client.fetchCategories().forEach(category -> live.get("categories").add(category.id()));
+    }
+
+    public static Map<String, Integer> mix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            int equals = entry.lastIndexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected route=weight in the request mix, found '" + entry + "'");
+            }
+            mix.merge(entry.substring(0, equals).trim(), Integer.parseInt(entry.substring(equals + 1).trim()), Integer::sum);
+        }
+        return mix;
+    }
+
+    public List<String> routes() {
+        return List.of(routes);
+    }
+
+    //----------------------------------------------------------- calls -----------------------------------------------------------//
+
+    // only called from the thread that schedules the load
+    public Call next(Random random) {
+        int pick = Arrays.binarySearch(cumulativeWeights, random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]) + 1);
+        return call(routes[pick < 0 ? -pick - 1 : pick], random);
+    }
+
+    private Call call(String route, Random random) {
+        String method = route.substring(0, route.indexOf(' '));
+        String[] segments = route.substring(route.indexOf('/') + 1).split("/");
+        String type = segments[0];
+        if (method.equals("DELETE")) {
+            String id = created.get(type).take(random);
+            if (id == null) {
+                // nothing of ours left to delete yet; create one instead, reported as the create it is
+                return call("POST /" + type, random);
+            }
+            live.get(type).remove(id);
+            return new Call(route, method, type + "/" + id, null);
+        }
+        String path = segments.length == 1 ? type : type + "/" + live.get(type).pick(random);
+        if (segments.length == 3) {
+            path += "/" + segments[2];
+        }
+        return switch (method) {
+            case "GET" -> new Call(route, method, path, null);
+            case "PUT" -> new Call(route, method, path, fields("title", "replaced " + sequence++));
+            default -> new Call(route, method, path, switch (segments.length) {
+                case 1 -> fields("title", "load " + sequence++);
+                case 2 -> fields("description", "amended " + sequence++);
+                default -> fields("id", live.get(RELATED_TYPES.get(segments[2])).pick(random));
+            });
+        };
+    }
+
+    private static JSONObject fields(String name, String value) {
+        JSONObject body = new JSONObject();
+        body.put(name, value);
+        return body;
+    }
+
+    private static void validate(String route) {
+        Matcher matcher = Pattern.compile("(GET|POST|PUT|DELETE) /(todos|projects|categories)(/:id(/(\\w+))?)?").matcher(route);
+        boolean valid = matcher.matches();
+        if (valid && matcher.group(3) == null) {
+            valid = !route.startsWith("PUT") && !route.startsWith("DELETE");
+        } else if (valid && matcher.group(5) != null) {
+            valid = (route.startsWith("GET") || route.startsWith("POST")) && RELATED_TYPES.containsKey(matcher.group(5));
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Cannot load route '" + route + "'");
+        }
+    }
+
+    // called from the client's threads as responses arrive
+    public void completed(Call call, ApiResponse response) {
+        if (call.method().equals("POST") && call.path().indexOf('/') < 0 && response.code() == 201) {
+            Matcher id = CREATED_ID.matcher(response.body());
+            if (id.find()) {
+                live.get(call.path()).add(id.group(1));
+                created.get(call.path()).add(id.group(1));
+            }
+        }
+    }
+
+    //----------------------------------------------------------- ids -----------------------------------------------------------//
+
+    // ids drawn at random and removed by swapping in the last one, both in constant time
+    private static final class IdPool {
+        private final List<String> ids = new ArrayList<>();
+        private final Map<String, Integer> positions = new LinkedHashMap<>();
+
+        synchronized void add(String id) {
+            if (positions.putIfAbsent(id, ids.size()) == null) {
+                ids.add(id);
+            }
+        }
+
+        synchronized String pick(Random random) {
+            // an empty server still gets a well-formed request, answered with a 404
+            return ids.isEmpty() ? "0" : ids.get(random.nextInt(ids.size()));
+        }
+
+        synchronized String take(Random random) {
+            if (ids.isEmpty()) {
+                return null;
+            }
+            String id = ids.get(random.nextInt(ids.size()));
+            remove(id);
+            return id;
+        }
+
+        synchronized void remove(String id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return;
+            }
+            String last = ids.remove(ids.size() - 1);
+            if (position < ids.size()) {
+                ids.set(position, last);
+                positions.put(last, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.util.concurrent.TimeUnit;
+
+// A fully read (and closed) response of the Todo Manager together with how long the call took.
+public class ApiResponse {
+
+    private final String method;
+    private final String url;
+    private final int code;
+    private final String message;
+    private final String contentType;
+    private final String body;
+    private final long elapsedNanos;
+
+    public ApiResponse(String method, String url, int code, String message, String contentType, String body, long elapsedNanos) {
+        this.method = method;
+        this.url = url;
+        this.code = code;
+        this.message = message;
+        this.contentType = contentType;
+        this.body = body;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public JSONObject json() {
+        try {
+            return (JSONObject) new JSONParser().parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException(method + " " + url + " did not answer JSON: " + body, e);
+        }
+    }
+
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String body() {
+        return body;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double elapsedMillis() {
+        return elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url + " -> " + code + " " + message + String.format(" (%.2f ms)", elapsedMillis());
+    }
+}
@@ -0,0 +1,166 @@
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Non-blocking counterpart of TodoManagerClient for issuing many calls at once. OkHttp only runs 5 calls per
+// host at a time by default, so this client brings its own dispatcher; on top of that, a semaphore bounds the
+// calls in flight and makes callers wait instead of queueing without limit. A caller that sends from inside a
+// callback or a dependent stage runs on a dispatcher thread; should every permit be held by calls waiting on
+// that dispatcher, it would wait forever, so the wait is bounded and the call fails with a message saying why.
+//   todomanager.async.acquireTimeoutMs=60000
+public class AsyncTodoManagerClient implements AutoCloseable {
+
+    static final int DEFAULT_MAX_REQUESTS = Integer.getInteger("todomanager.async.maxRequests", 64);
+    static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger("todomanager.async.maxInFlight", 256);
+    static final long ACQUIRE_TIMEOUT_MS = Long.getLong("todomanager.async.acquireTimeoutMs", 60_000);
+
+    private final TodoManagerClient urls;
+    private final OkHttpClient http;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    public AsyncTodoManagerClient(OkHttpClient base, String baseUrl) {
+        this(base, baseUrl, DEFAULT_MAX_REQUESTS, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AsyncTodoManagerClient(OkHttpClient base, String baseUrl, int maxRequests, int maxInFlight) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+        // shares the connection pool and interceptors of the base client
+        this.http = base.newBuilder().dispatcher(dispatcher).build();
+        this.urls = new TodoManagerClient(http, baseUrl);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    //----------------------------------------------------------- single calls -----------------------------------------------------------//
+
+    public CompletableFuture<ApiResponse> get(String path) {
+        return send(new Request.Builder().url(urls.resolve(path)).get().build());
+    }
+
+    public CompletableFuture<ApiResponse> post(String path, JSONObject body) {
+        return send(new Request.Builder().url(urls.resolve(path)).post(RequestBody.create(TodoManagerClient.JSON, body.toString())).build());
+    }
+
+    public CompletableFuture<ApiResponse> put(String path, JSONObject body) {
+        return send(new Request.Builder().url(urls.resolve(path)).put(RequestBody.create(TodoManagerClient.JSON, body.toString())).build());
+    }
+
+    public CompletableFuture<ApiResponse> delete(String path) {
+        return send(new Request.Builder().url(urls.resolve(path)).delete().build());
+    }
+
+    // blocks the caller while the in-flight limit is reached; the elapsed time includes any dispatcher queueing
+    public CompletableFuture<ApiResponse> send(Request request) {
+        try {
+            if (!inFlight.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new IllegalStateException(request.method() + " " + request.url()
+                        + " waited " + ACQUIRE_TIMEOUT_MS + " ms for one of " + maxInFlight + " in-flight permits. If it was sent"
+                        + " from a callback or dependent stage, that thread belongs to the dispatcher the calls are waiting on."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        http.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                ApiResponse answer;
+                try (response) {
+                    ResponseBody body = response.body();
+                    String content = body != null ? body.string() : "";
+                    answer = new ApiResponse(request.method(), request.url().toString(), response.code(),
+                            response.message(), response.header("Content-Type"), content, System.nanoTime() - start);
+                } catch (IOException e) {
+                    inFlight.release();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // the permit is back before dependent stages run on this thread
+                inFlight.release();
+                future.complete(answer);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                inFlight.release();
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    //----------------------------------------------------------- bulk -----------------------------------------------------------//
+
+    public CompletableFuture<List<ApiResponse>> createAll(String type, List<JSONObject> entities) {
+        List<CompletableFuture<ApiResponse>> calls = new ArrayList<>();
+        for (JSONObject entity : entities) {
+            calls.add(post(type, entity));
+        }
+        return all(calls);
+    }
+
+    public CompletableFuture<List<ApiResponse>> deleteAll(String type, List<String> ids) {
+        List<CompletableFuture<ApiResponse>> calls = new ArrayList<>();
+        for (String id : ids) {
+            calls.add(delete(type + "/" + id));
+        }
+        return all(calls);
+    }
+
+    public CompletableFuture<List<ApiResponse>> linkAll(String type, String id, String relationship, List<String> relatedIds) {
+        List<CompletableFuture<ApiResponse>> calls = new ArrayList<>();
+        for (String relatedId : relatedIds) {
+            JSONObject body = new JSONObject();
+            body.put("id", relatedId);
+            calls.add(post(type + "/" + id + "/" + relationship, body));
+        }
+        return all(calls);
+    }
+
+    // todos, projects and categories in one round trip's worth of wall time, keyed by type
+    public CompletableFuture<Map<String, ApiResponse>> readGraph() {
+        Map<String, CompletableFuture<ApiResponse>> calls = new LinkedHashMap<>();
+        for (String type : ServerStateReset.ENTITY_TYPES) {
+            calls.put(type, get(type));
+        }
+        return CompletableFuture.allOf(calls.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, ApiResponse> graph = new LinkedHashMap<>();
+            calls.forEach((type, call) -> graph.put(type, call.join()));
+            return graph;
+        });
+    }
+
+    static <T> CompletableFuture<List<T>> all(List<CompletableFuture<T>> calls) {
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<T> results = new ArrayList<>(calls.size());
+            for (CompletableFuture<T> call : calls) {
+                results.add(call.join());
+            }
+            return results;
+        });
+    }
+
+    public void close() {
+        http.dispatcher().executorService().shutdown();
+    }
+}
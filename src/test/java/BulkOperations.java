@@ -0,0 +1,161 @@
+import jdk.jfr.consumer.RecordingStream;
+import org.json.simple.JSONObject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs many blocking TodoManagerClient calls at once (seeding, mass deletes, relationship wiring), one
+// virtual thread per call. Virtual threads are a preview API on Java 20, so the executor is looked up
+// reflectively and a platform pool is used when the running JDK does not allow them.
+//   todomanager.bulk.threads=virtual|platform   todomanager.bulk.platformThreads=64
+public class BulkOperations implements AutoCloseable {
+
+    static final String THREADS = System.getProperty("todomanager.bulk.threads", "virtual");
+    static final int PLATFORM_THREADS = Integer.getInteger("todomanager.bulk.platformThreads", 64);
+    static final long CLOSE_TIMEOUT_MS = 30_000;
+
+    private final TodoManagerClient client;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final RecordingStream pinning;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    public BulkOperations(TodoManagerClient client) {
+        this.client = client;
+        ExecutorService virtualExecutor = THREADS.equals("virtual") ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        this.pinning = virtual ? recordPinning() : null;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // JDK 20 without --enable-preview, or older
+            return null;
+        }
+    }
+
+    // a virtual thread that blocks inside synchronized code holds on to its carrier thread
+    private RecordingStream recordPinning() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1));
+        stream.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.incrementAndGet());
+        stream.startAsync();
+        return stream;
+    }
+
+    //----------------------------------------------------------- operations -----------------------------------------------------------//
+
+    public List<ApiResponse> seed(String type, List<JSONObject> entities) {
+        List<Callable<ApiResponse>> calls = new ArrayList<>();
+        for (JSONObject entity : entities) {
+            calls.add(() -> client.create(type, entity));
+        }
+        return runAll(calls);
+    }
+
+    public List<ApiResponse> deleteAll(String type, List<String> ids) {
+        List<Callable<ApiResponse>> calls = new ArrayList<>();
+        for (String id : ids) {
+            calls.add(() -> client.remove(type, id));
+        }
+        return runAll(calls);
+    }
+
+    public List<ApiResponse> linkAll(String type, String id, String relationship, List<String> relatedIds) {
+        List<Callable<ApiResponse>> calls = new ArrayList<>();
+        for (String relatedId : relatedIds) {
+            calls.add(() -> client.link(type, id, relationship, relatedId));
+        }
+        return runAll(calls);
+    }
+
+    // results come back in the order of the calls
+    public <T> List<T> runAll(List<Callable<T>> calls) {
+        long start = System.nanoTime();
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            futures.add(executor.submit(() -> {
+                peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    return call.call();
+                } finally {
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            }));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for bulk calls.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Bulk call failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            busyNanos.addAndGet(System.nanoTime() - start);
+        }
+        return results;
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // the most calls that were running at the same moment
+    public int peakConcurrency() {
+        return peakRunning.get();
+    }
+
+    public long pinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    public double callsPerSecond() {
+        long nanos = busyNanos.get();
+        return nanos == 0 ? 0 : completed.get() / (nanos / 1e9);
+    }
+
+    public String report() {
+        return String.format("%s threads: %d calls, peak %d concurrent, %.0f calls/s, %s",
+                virtual ? "virtual" : PLATFORM_THREADS + " platform", completed.get(), peakConcurrency(), callsPerSecond(),
+                virtual ? pinnedEvents() + " pinning events" : "pinning n/a");
+    }
+
+    // calls left running by a failed runAll() finish first, so their pinning events are still counted
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (pinning != null) {
+            pinning.close();
+        }
+    }
+}
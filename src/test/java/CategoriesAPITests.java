@@ -8,6 +8,8 @@ import org.json.simple.parser.JSONParser;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.List;
+
 @TestMethodOrder(MethodOrderer.Random.class)
 @ExtendWith(CommonTests.class)
 public class CategoriesAPITests {
@@ -17,11 +19,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesGet() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
@@ -31,11 +33,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesHead() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -43,9 +45,6 @@ public class CategoriesAPITests {
     //Create categories without a ID using the field values in the body of the message
     @Test
     public void testCategoriesFullPost() throws Exception {
-        // check categories object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         // Create a new category item
         String title = "ECSE 429";
         String description =  "software validation!";
@@ -53,33 +52,24 @@ public class CategoriesAPITests {
         JSONObject newCategoryObject = createNewCategoryObject(title, description);
 
         //Send a POST request to add the new category item
-        sendPostRequestToCreateCategoryItem(newCategoryObject, "http://localhost:4567/categories", 201);
+        sendPostRequestToCreateCategoryItem(newCategoryObject, CommonTests.url() + "/categories", 201);
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     //Create categories with only title in the body of the message
     @Test
     public void testCategoriesTitlePost() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         String title = "ECSE 429";
 
         JSONObject newCategoryObject = createNewCategoryObject(title, "");
 
         //Send a POST request to add the new category item
-        sendPostRequestToCreateCategoryItem(newCategoryObject, "http://localhost:4567/categories", 201);
-
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
+        sendPostRequestToCreateCategoryItem(newCategoryObject, CommonTests.url() + "/categories", 201);
 
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     //Create categories with and ID
@@ -96,11 +86,11 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(400, response.code());
         assertEquals("Bad Request", response.message());
@@ -112,11 +102,11 @@ public class CategoriesAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .put(dummyBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -125,11 +115,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesDelete() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -149,11 +139,11 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(400, response.code());
         assertEquals("Bad Request", response.message());
@@ -165,11 +155,11 @@ public class CategoriesAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories")
+                .url(CommonTests.url() + "/categories")
                 .patch(dummyBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -181,15 +171,15 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesGetWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1")
+                .url(CommonTests.url() + "/categories/1")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         assert response.body() != null;
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         JSONParser parser = new JSONParser();
         JSONObject responseJson = (JSONObject) parser.parse(responseBody);
@@ -210,11 +200,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesGetWithInvalidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/10")
+                .url(CommonTests.url() + "/categories/10")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -224,11 +214,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesHeadID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1")
+                .url(CommonTests.url() + "/categories/1")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(200, response.code());
@@ -244,17 +234,16 @@ public class CategoriesAPITests {
         JSONObject newCategoryObject = createNewCategoryObject(title, description);
 
         //Send a POST request to add the new category item
-        sendPostRequestToCreateCategoryItem(newCategoryObject, "http://localhost:4567/categories/1", 200);
+        sendPostRequestToCreateCategoryItem(newCategoryObject, CommonTests.url() + "/categories/1", 200);
 
         //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
+        List<Category> updatedCategories = fetchCategoryList();
 
         //Verify the previous category items are still there, and the new one is created
-        for(Object categoryObject: updatedCategories){
-            JSONObject category = (JSONObject) categoryObject;
-            String id = (String) category.get("id");
-            String titleCheck = (String) category.get("title");
-            String descriptionCheck = (String) category.get("description");
+        for(Category category: updatedCategories){
+            String id = category.id();
+            String titleCheck = category.title();
+            String descriptionCheck = category.description();
 
             if(id.equals("1")){
                 assertEquals(title, titleCheck);
@@ -273,11 +262,11 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/5")
+                .url(CommonTests.url() + "/categories/5")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -290,17 +279,16 @@ public class CategoriesAPITests {
         JSONObject newCategoryObject = createNewCategoryObject(title, description);
 
         //Send a POST request to add the new category item
-        sendPutRequestToCreateCategoryItem(newCategoryObject, "http://localhost:4567/categories/1", 200);
+        sendPutRequestToCreateCategoryItem(newCategoryObject, CommonTests.url() + "/categories/1", 200);
 
         //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
+        List<Category> updatedCategories = fetchCategoryList();
 
         //Verify the previous category items are still there, and the new one is created
-        for(Object categoryObject: updatedCategories){
-            JSONObject category = (JSONObject) categoryObject;
-            String id = (String) category.get("id");
-            String titleCheck = (String) category.get("title");
-            String descriptionCheck = (String) category.get("description");
+        for(Category category: updatedCategories){
+            String id = category.id();
+            String titleCheck = category.title();
+            String descriptionCheck = category.description();
 
             if(id.equals("1")){
                 assertEquals(title, titleCheck);
@@ -319,11 +307,11 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/3")
+                .url(CommonTests.url() + "/categories/3")
                 .put(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -331,11 +319,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesDeleteWithInvalidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/3")
+                .url(CommonTests.url() + "/categories/3")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -343,11 +331,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesDeleteWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1")
+                .url(CommonTests.url() + "/categories/1")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -357,11 +345,11 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1")
+                .url(CommonTests.url() + "/categories/1")
                 .patch(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
     }
@@ -370,9 +358,6 @@ public class CategoriesAPITests {
 
     @Test
     public void testCategoriesPostExistingProjects() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("id", "1");
@@ -380,29 +365,23 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
     public void testCategoriesPostNewProjects() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("title", "latte");
@@ -410,22 +389,19 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -437,12 +413,12 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -452,11 +428,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesProjectsHead() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -464,10 +440,10 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesGetProjects() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -476,9 +452,6 @@ public class CategoriesAPITests {
 
     @Test
     public void testCategoriesDeleteValidProjects() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("id", "1");
@@ -486,31 +459,28 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects/1")
+                .url(CommonTests.url() + "/categories/1/projects/1")
                 .delete()
                 .build();
 
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -522,21 +492,21 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects")
+                .url(CommonTests.url() + "/categories/1/projects")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/projects/1")
+                .url(CommonTests.url() + "/categories/1/projects/1")
                 .delete()
                 .build();
 
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -547,9 +517,6 @@ public class CategoriesAPITests {
 
     @Test
     public void testCategoriesPostExistingTodos() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("id", "1");
@@ -557,29 +524,23 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
     public void testCategoriesPostNewTodos() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("title", "latte");
@@ -587,21 +548,18 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -613,12 +571,12 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -628,11 +586,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesTodosHead() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -640,21 +598,21 @@ public class CategoriesAPITests {
     @Test
     public void testInvalidCategoriesTodosHead() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/10/todos")
+                .url(CommonTests.url() + "/categories/10/todos")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
     }
 
     @Test
     public void testCategoriesGetTodos() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -662,10 +620,10 @@ public class CategoriesAPITests {
     @Test
     public void testCategoriesGetTodosInvalidCategory() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/8/todos")
+                .url(CommonTests.url() + "/categories/8/todos")
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
     }
 
@@ -673,9 +631,6 @@ public class CategoriesAPITests {
 
     @Test
     public void testCategoriesDeleteValidTodos() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("id", "1");
@@ -683,31 +638,28 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos/1")
+                .url(CommonTests.url() + "/categories/1/todos/1")
                 .delete()
                 .build();
 
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -719,21 +671,21 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos")
+                .url(CommonTests.url() + "/categories/1/todos")
                 .post(requestBody)
                 .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         request = new Request.Builder()
-                .url("http://localhost:4567/categories/1/todos/1")
+                .url(CommonTests.url() + "/categories/1/todos/1")
                 .delete()
                 .build();
 
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -749,11 +701,11 @@ public class CategoriesAPITests {
     @Test
     public void testCategoryProjectRelationshipGet() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/1")
+            .url(CommonTests.url() + "/categories/1/projects/1")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -765,11 +717,11 @@ public class CategoriesAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/1")
+            .url(CommonTests.url() + "/categories/1/projects/1")
             .post(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -780,11 +732,11 @@ public class CategoriesAPITests {
     public void testCategoryProjectRelationshipPut() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/1")
+            .url(CommonTests.url() + "/categories/1/projects/1")
             .put(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -795,11 +747,11 @@ public class CategoriesAPITests {
     public void testCategoryProjectRelationshipPatch() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/1")
+            .url(CommonTests.url() + "/categories/1/projects/1")
             .patch(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -807,9 +759,6 @@ public class CategoriesAPITests {
 
     @Test
     public void testCategoryProjectRelationshipDeleteValid() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("title", "latte");
@@ -817,35 +766,29 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects")
+            .url(CommonTests.url() + "/categories/1/projects")
             .post(requestBody)
             .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/2")
+            .url(CommonTests.url() + "/categories/1/projects/2")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
     public void testCategoryProjectRelationshipDeleteDoubleInvalid() throws Exception {
-        // check category object before post request
-        JSONArray initialCategories = fetchCategoryList("http://localhost:4567/categories");
-
         JSONObject jsonObject = new JSONObject();
 
         jsonObject.put("title", "latte");
@@ -853,46 +796,43 @@ public class CategoriesAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects")
+            .url(CommonTests.url() + "/categories/1/projects")
             .post(requestBody)
             .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/2")
+            .url(CommonTests.url() + "/categories/1/projects/2")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/2")
+            .url(CommonTests.url() + "/categories/1/projects/2")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(404, response.code());
 
-        //Fetch category items again
-        JSONArray updatedCategories = fetchCategoryList("http://localhost:4567/categories");
-
-        //Verify the previous category items are still there, and the new one is created
-        verifyCategoryObjectAreUpdated(initialCategories, updatedCategories);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
     
     //method not allowed and not in api documentation
     @Test
     public void testCategoryProjectRelationshipDeleteInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/2023")
+            .url(CommonTests.url() + "/categories/1/projects/2023")
             .delete()
             .build();
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
 
@@ -902,30 +842,19 @@ public class CategoriesAPITests {
     @Test
     public void testCategoryProjectRelationshipHead() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/categories/1/projects/1")
+            .url(CommonTests.url() + "/categories/1/projects/1")
             .head()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
 
-    public static JSONArray fetchCategoryList(String getRequest) throws Exception {
-        Request request = new Request.Builder()
-                .url(getRequest)
-                .get()
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
-
-        return (JSONArray) responseJson.get("categories");
+    // decoded straight off the response by JsonEntityDecoder
+    public static List<Category> fetchCategoryList() {
+        return CommonTests.api().fetchCategories();
     }
 
     public static JSONObject createNewCategoryObject(String title, String description) {
@@ -935,43 +864,11 @@ public class CategoriesAPITests {
         return jsonObject;
     }
 
-    public static void verifyCategoryObjectAreUpdated(JSONArray initialCategories, JSONArray updatedCategories) {
-        // Verify that the previous Category items are still there
-        for (Object initialCategoryObject : initialCategories) {
-            JSONObject initialCategory = (JSONObject) initialCategoryObject;
-            String initialId = (String) initialCategory.get("id");
-            String initialDescription = (String) initialCategory.get("description");
-
-
-            boolean found = false;
-            for (Object updatedCategoryObject : updatedCategories) {
-                JSONObject updatedCategory = (JSONObject) updatedCategoryObject;
-                String updatedId = (String) updatedCategory.get("id");
-                String updatedDescription = (String) updatedCategory.get("description");
-                if (initialId.equals(updatedId) && initialDescription.equals(updatedDescription)) {
-                    found = true;
-                    break;
-                }
-            }
-            assertTrue(found, "Previous Category item with ID " + initialId + " is different or not found");
-        }
-    }
-
     public static void sendPostRequestToCreateCategoryItem(JSONObject newCategory, String postRequest, int expectedCode) throws Exception {
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), newCategory.toString());
-        Request request = new Request.Builder()
-                .url(postRequest)
-                .post(requestBody)
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().post(postRequest, newCategory);
         assertEquals(expectedCode, response.code());
 
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
+        JSONObject responseJson = response.json();
 
         String responseTitle = (String) responseJson.get("title");
         String responseDescription = (String) responseJson.get("description");
@@ -981,20 +878,10 @@ public class CategoriesAPITests {
     }
 
     public static void sendPutRequestToCreateCategoryItem(JSONObject newCategory, String postRequest, int expectedCode) throws Exception {
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), newCategory.toString());
-        Request request = new Request.Builder()
-                .url(postRequest)
-                .put(requestBody)
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().put(postRequest, newCategory);
         assertEquals(expectedCode, response.code());
 
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
+        JSONObject responseJson = response.json();
 
         String responseTitle = (String) responseJson.get("title");
         String responseDescription = (String) responseJson.get("description");
@@ -0,0 +1,10 @@
+import java.util.List;
+
+// A category as the API returns it; relationship fields hold the ids of the related entities.
+public record Category(String id, String title, String description, List<String> todos, List<String> projects) {
+
+    public Category {
+        todos = List.copyOf(todos);
+        projects = List.copyOf(projects);
+    }
+}
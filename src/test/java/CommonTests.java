@@ -1,52 +1,208 @@
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
-import java.io.IOException;
-import java.net.ConnectException;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
 
-public class CommonTests implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+import java.util.Map;
 
-    private static final OkHttpClient client = new OkHttpClient();
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-    public void beforeTestExecution(ExtensionContext context) {
-        try {
-            String filePath = "src\\test\\java\\runTodoManagerRestAPI-1.5.5.jar";
-            ProcessBuilder processBuilder = new ProcessBuilder("java", "-jar", filePath);
-            processBuilder.start();
+public class CommonTests implements BeforeAllCallback, AfterAllCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+
+    // per-test: a fresh JVM for every test (default)
+    // per-class: one JVM per test class, reset to the seeded data through the API between tests
+    // pool: every test leases its own pre-warmed JVM on a free port, so tests can run in parallel
+    // pipelined: a fresh JVM for every test, booted in the background while the previous test runs
+    static final String LIFECYCLE = System.getProperty("todomanager.lifecycle", "per-test");
+    static final boolean VERIFY_RESET = Boolean.parseBoolean(System.getProperty("todomanager.reset.verify", "true"));
+    // verifyShadowModel() downloads and compares everything instead of just what the test touched in one test out
+    // of n, picked by the test's name so the same tests audit whatever order the methods run in. 1 audits every test
+    static final int AUDIT_EVERY = Integer.getInteger("todomanager.shadow.auditEvery", 25);
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(CommonTests.class);
 
-            Thread.sleep(600);
+    private static final OkHttpClient client = TodoManagerClient.pooledClientBuilder()
+            .addInterceptor(ServerStateReset.interceptor())
+            .addInterceptor(ShadowModel.interceptor())
+            .addInterceptor(TrafficRecorder.interceptor())
+            .build();
 
-            Request request = new Request.Builder()
-                    .url("http://localhost:4567/")
-                    .build();
-            Response response = client.newCall(request).execute();
-            if (!response.isSuccessful()) {
-                throw new RuntimeException("API is not running or is not responding as expected.");
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Error starting the API: " + e.getMessage(), e);
+    // every server starts from the same seeded data, so it is read once and each test's shadow model starts from it
+    private static Map<String, Map<String, Map<String, Object>>> seed;
+
+    // the server the test running on this thread talks to, and that test as Class#method
+    private static final ThreadLocal<TodoManagerServer> currentServer = new ThreadLocal<>();
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    public void beforeAll(ExtensionContext context) {
+        if (LIFECYCLE.equals("per-class")) {
+            startTrackedServer(context);
         }
     }
 
+    public void afterAll(ExtensionContext context) {
+        if (LIFECYCLE.equals("per-class")) {
+            stopTrackedServer(context);
+        }
+    }
+
+    public void beforeTestExecution(ExtensionContext context) {
+        TodoManagerServer server = serverFor(context);
+        currentServer.set(server);
+        currentTest.set(context.getRequiredTestClass().getName() + "#" + context.getRequiredTestMethod().getName());
+        ShadowModel.open(server, seed(server));
+    }
+
     public void afterTestExecution(ExtensionContext context)  {
+        TodoManagerServer current = currentServer.get();
+        currentServer.remove();
+        currentTest.remove();
+        if (current != null) {
+            ShadowModel.close(current);
+        }
+        // only a failing test pays for copying the server output into the report
+        if (current != null && context.getExecutionException().isPresent()) {
+            context.publishReportEntry("serverLog", current.logTail());
+        }
+        TodoManagerServer server = context.getStore(NAMESPACE).remove(TodoManagerServer.class, TodoManagerServer.class);
+        if (server == null) {
+            return;
+        }
+        if (LIFECYCLE.equals("pool")) {
+            pool(context).release(server);
+        } else if (LIFECYCLE.equals("pipelined")) {
+            pipeline(context).retire(server);
+        } else {
+            server.stop();
+        }
+    }
+
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == TodoManagerServer.class;
+    }
+
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return serverFor(extensionContext);
+    }
+
+    private TodoManagerServer serverFor(ExtensionContext context) {
+        if (LIFECYCLE.equals("per-class")) {
+            ExtensionContext classContext = context.getParent().orElseThrow();
+            resetClassServer(classContext);
+            return classContext.getStore(NAMESPACE).get(TodoManagerServer.class, TodoManagerServer.class);
+        }
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        TodoManagerServer server = store.get(TodoManagerServer.class, TodoManagerServer.class);
+        if (server != null) {
+            return server;
+        }
+        if (LIFECYCLE.equals("pool")) {
+            server = pool(context).lease();
+        } else if (LIFECYCLE.equals("pipelined")) {
+            server = pipeline(context).take();
+            context.publishReportEntry("timeToReadyMs", String.valueOf(server.getTimeToReadyMillis()));
+        } else {
+            server = TodoManagerServer.create(TodoManagerServer.DEFAULT_PORT);
+            server.start();
+            context.publishReportEntry("timeToReadyMs", String.valueOf(server.getTimeToReadyMillis()));
+        }
+        store.put(TodoManagerServer.class, server);
+        return server;
+    }
+
+    private static TodoManagerServerPool pool(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(TodoManagerServerPool.class,
+                key -> new TodoManagerServerPool(client, TodoManagerServerPool.DEFAULT_SIZE), TodoManagerServerPool.class);
+    }
+
+    private static TodoManagerServerPipeline pipeline(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(TodoManagerServerPipeline.class,
+                key -> new TodoManagerServerPipeline(), TodoManagerServerPipeline.class);
+    }
+
+    private void startTrackedServer(ExtensionContext classContext) {
+        TodoManagerServer server = TodoManagerServer.create(TodoManagerServer.DEFAULT_PORT);
+        server.start();
+        ExtensionContext.Store store = classContext.getStore(NAMESPACE);
+        store.put(TodoManagerServer.class, server);
+        store.put(ServerStateReset.class, ServerStateReset.track(client, server));
+        classContext.publishReportEntry("timeToReadyMs", String.valueOf(server.getTimeToReadyMillis()));
+    }
+
+    private void stopTrackedServer(ExtensionContext classContext) {
+        ExtensionContext.Store store = classContext.getStore(NAMESPACE);
+        store.remove(ServerStateReset.class);
+        TodoManagerServer server = store.remove(TodoManagerServer.class, TodoManagerServer.class);
+        if (server != null) {
+            ServerStateReset.untrack(server);
+            server.stop();
+        }
+    }
+
+    // restarts only when the previous test consumed ids or the in-place reset could not reproduce the seed
+    private void resetClassServer(ExtensionContext classContext) {
+        ServerStateReset reset = classContext.getStore(NAMESPACE).get(ServerStateReset.class, ServerStateReset.class);
+        if (!reset.isMutated()) {
+            return;
+        }
+        if (!reset.requiresRestart() && restoredInPlace(reset)) {
+            return;
+        }
+        stopTrackedServer(classContext);
+        startTrackedServer(classContext);
+    }
+
+    private boolean restoredInPlace(ServerStateReset reset) {
         try {
-            Request request = new Request.Builder()
-                    .url("http://localhost:4567/shutdown")
-                    .get()
-                    .build();
-            client.newCall(request).execute();
-            Thread.sleep(400);
-        } catch (ConnectException e) {
-            // Server doesn't respond anymore after shutdown; no need for further action.
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Error shutting down the API: " + e.getMessage(), e);
+            reset.restore();
+            return !VERIFY_RESET || reset.matchesSeed();
+        } catch (RuntimeException e) {
+            // a refused request or an I/O error alike: the caller restarts the server
+            return false;
+        }
+    }
+
+    private static synchronized Map<String, Map<String, Map<String, Object>>> seed(TodoManagerServer server) {
+        if (seed == null) {
+            seed = ServerStateReset.snapshot(client, server.baseUrl());
         }
+        return seed;
     }
 
     public static OkHttpClient getClient() {
         return client;
     }
+
+    // typed client for the server leased to the current test
+    public static TodoManagerClient api() {
+        return new TodoManagerClient(client, url());
+    }
+
+    // base url of the server leased to the current test, e.g. http://localhost:4567
+    public static String url() {
+        TodoManagerServer server = currentServer.get();
+        return server != null ? server.baseUrl() : "http://localhost:" + TodoManagerServer.DEFAULT_PORT;
+    }
+
+    public static ShadowModel shadow() {
+        TodoManagerServer server = currentServer.get();
+        if (server == null) {
+            throw new IllegalStateException("No server is leased to this test.");
+        }
+        return ShadowModel.of(server);
+    }
+
+    // checks what the current test changed against the shadow model, with one GET per touched entity; the tests
+    // picked for an audit (and any test the model lost track in) compare whole collections instead
+    public static void verifyShadowModel() {
+        ShadowModel model = shadow();
+        String test = currentTest.get();
+        boolean audit = model.hasLostTrack() || AUDIT_EVERY > 0 && (test == null || Math.floorMod(test.hashCode(), AUDIT_EVERY) == 0);
+        Map<String, SnapshotDiff> differences = TrafficRecorder.unrecorded(() -> audit ? model.audit(api()) : model.verifyTouched(api()));
+        assertTrue(differences.isEmpty(), "Server state differs from the shadow model:\n" + differences);
+    }
 }
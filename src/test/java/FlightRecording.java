@@ -0,0 +1,187 @@
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Java Flight Recorder in a forked server, with -Dtodomanager.jfr=true. The JVM writes the recording as it
+// exits; once the server is stopped it is read back with jdk.jfr.consumer and summed up: the methods most often
+// on CPU, the sites that allocate the most, the monitors threads queued on, and the GC pauses. The summary is
+// printed and saved next to the recording, target/jfr/todomanager-<port>-<time>.jfr(.txt).
+//   todomanager.jfr.settings=profile   or default, the lighter configuration shipped with the JDK
+//   todomanager.jfr.top=10             entries per table
+public class FlightRecording {
+
+    static final boolean ENABLED = Boolean.getBoolean("todomanager.jfr");
+    static final String SETTINGS = System.getProperty("todomanager.jfr.settings", "profile");
+    static final int TOP = Integer.getInteger("todomanager.jfr.top", 10);
+    static final Path DIRECTORY = Paths.get("target", "jfr");
+
+    private final Path file;
+
+    private FlightRecording(Path file) {
+        this.file = file;
+    }
+
+    // null when profiling is off
+    public static FlightRecording forServer(int port) {
+        if (!ENABLED) {
+            return null;
+        }
+        try {
+            Files.createDirectories(DIRECTORY);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create " + DIRECTORY + ": " + e.getMessage(), e);
+        }
+        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS"));
+        return new FlightRecording(DIRECTORY.resolve("todomanager-" + port + "-" + time + ".jfr"));
+    }
+
+    public List<String> jvmArgs() {
+        return List.of("-XX:StartFlightRecording=filename=" + file + ",dumponexit=true,settings=" + SETTINGS);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    // once the server has exited; a server that had to be killed outright leaves no recording
+    public void summarize() {
+        if (!Files.exists(file)) {
+            System.out.println("JFR: no recording at " + file + "; the server did not exit normally");
+            return;
+        }
+        try {
+            String summary = summary(file, TOP);
+            Path text = file.resolveSibling(file.getFileName() + ".txt");
+            Files.writeString(text, summary);
+            System.out.println(summary);
+        } catch (IOException e) {
+            System.out.println("JFR: could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    //----------------------------------------------------------- summary -----------------------------------------------------------//
+
+    // how often and how much for one key of a table
+    private static final class Tally {
+        long count;
+        long amount;
+        long max;
+
+        void add(long value) {
+            count++;
+            amount += value;
+            max = Math.max(max, value);
+        }
+    }
+
+    public static String summary(Path recording, int top) throws IOException {
+        Map<String, Tally> cpu = new HashMap<>();
+        Map<String, Tally> sampledAllocation = new HashMap<>();
+        Map<String, Tally> tlabAllocation = new HashMap<>();
+        Map<String, Tally> locks = new HashMap<>();
+        Map<String, Tally> gc = new HashMap<>();
+        Instant first = null;
+        Instant last = null;
+        try (RecordingFile events = new RecordingFile(recording)) {
+            while (events.hasMoreEvents()) {
+                RecordedEvent event = events.readEvent();
+                first = first == null || event.getStartTime().isBefore(first) ? event.getStartTime() : first;
+                last = last == null || event.getEndTime().isAfter(last) ? event.getEndTime() : last;
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> tally(cpu, topFrame(event.getStackTrace()), 1);
+                    // JDK 16 and later sample allocations, each weighted by the bytes it stands for
+                    case "jdk.ObjectAllocationSample" -> tally(sampledAllocation, allocationSite(event), event.getLong("weight"));
+                    case "jdk.ObjectAllocationInNewTLAB" -> tally(tlabAllocation, allocationSite(event), event.getLong("tlabSize"));
+                    case "jdk.ObjectAllocationOutsideTLAB" -> tally(tlabAllocation, allocationSite(event), event.getLong("allocationSize"));
+                    case "jdk.JavaMonitorEnter" -> tally(locks, className(event.getClass("monitorClass")) + " in "
+                            + topFrame(event.getStackTrace()), event.getDuration().toNanos());
+                    case "jdk.GarbageCollection" -> tally(gc, event.getString("name"), event.getDuration("sumOfPauses").toNanos());
+                    default -> {
+                    }
+                }
+            }
+        }
+        Map<String, Tally> allocation = sampledAllocation.isEmpty() ? tlabAllocation : sampledAllocation;
+
+        StringBuilder text = new StringBuilder();
+        Duration span = first != null ? Duration.between(first, last) : Duration.ZERO;
+        text.append(String.format(Locale.ROOT, "JFR %s: %.1fs recorded%n", recording, span.toMillis() / 1000.0));
+
+        long samples = cpu.values().stream().mapToLong(tally -> tally.count).sum();
+        text.append(String.format(Locale.ROOT, "%nTop CPU methods (%d execution samples, by top frame)%n", samples));
+        for (Map.Entry<String, Tally> entry : ranked(cpu, top, true)) {
+            text.append(String.format(Locale.ROOT, "  %5.1f%%  %6d  %s%n", 100.0 * entry.getValue().count / samples,
+                    entry.getValue().count, entry.getKey()));
+        }
+
+        long bytes = allocation.values().stream().mapToLong(tally -> tally.amount).sum();
+        text.append(String.format(Locale.ROOT, "%nTop allocation sites (%.1f MB sampled)%n", bytes / 1048576.0));
+        for (Map.Entry<String, Tally> entry : ranked(allocation, top, false)) {
+            text.append(String.format(Locale.ROOT, "  %5.1f%%  %9.1f MB  %s%n", 100.0 * entry.getValue().amount / Math.max(1, bytes),
+                    entry.getValue().amount / 1048576.0, entry.getKey()));
+        }
+
+        text.append(String.format(Locale.ROOT, "%nLock contention (monitor enters that blocked)%n"));
+        if (locks.isEmpty()) {
+            text.append("  none recorded\n");
+        }
+        for (Map.Entry<String, Tally> entry : ranked(locks, top, false)) {
+            text.append(String.format(Locale.ROOT, "  %6d  total %9.2f ms  max %8.2f ms  %s%n", entry.getValue().count,
+                    entry.getValue().amount / 1e6, entry.getValue().max / 1e6, entry.getKey()));
+        }
+
+        text.append(String.format(Locale.ROOT, "%nGC pauses%n"));
+        if (gc.isEmpty()) {
+            text.append("  none recorded\n");
+        }
+        for (Map.Entry<String, Tally> entry : ranked(gc, top, false)) {
+            text.append(String.format(Locale.ROOT, "  %6d collections  total %9.2f ms  max %8.2f ms  %s%n", entry.getValue().count,
+                    entry.getValue().amount / 1e6, entry.getValue().max / 1e6, entry.getKey()));
+        }
+        return text.toString();
+    }
+
+    private static void tally(Map<String, Tally> table, String key, long value) {
+        table.computeIfAbsent(key, name -> new Tally()).add(value);
+    }
+
+    private static List<Map.Entry<String, Tally>> ranked(Map<String, Tally> table, int top, boolean byCount) {
+        List<Map.Entry<String, Tally>> entries = new ArrayList<>(table.entrySet());
+        entries.sort((a, b) -> byCount ? Long.compare(b.getValue().count, a.getValue().count)
+                : Long.compare(b.getValue().amount, a.getValue().amount));
+        return entries.subList(0, Math.min(top, entries.size()));
+    }
+
+    private static String allocationSite(RecordedEvent event) {
+        return className(event.getClass("objectClass")) + " in " + topFrame(event.getStackTrace());
+    }
+
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass != null ? recordedClass.getName() : "?";
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "(no stack trace)";
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+// Runs the jar inside the test JVM instead of forking one. Every start gets its own class loader, so the
+// static Spark and Thingifier state of one instance never leaks into the next, while the JVM itself (and
+// the JIT work it has already done on the JDK and OkHttp) is reused.
+public class InProcessTodoManagerServer extends TodoManagerServer {
+
+    private static final String MAIN_CLASS = "uk.co.compendiumdev.todolist.application.Main";
+    private static final long THREAD_EXIT_TIMEOUT_MS = 10000;
+
+    private URLClassLoader classLoader;
+    private volatile Exception initFailure;
+
+    public InProcessTodoManagerServer(int port) {
+        super(port, StartupProfile.DEFAULT);
+    }
+
+    @Override
+    protected void launch() throws IOException {
+        URL jar = JAR.toUri().toURL();
+        classLoader = new URLClassLoader("todomanager-" + getPort(), new URL[]{jar}, ClassLoader.getPlatformClassLoader());
+        try {
+            withClassLoader(() -> {
+                // Spark calls System.exit when the server cannot start; keep the failure instead
+                Consumer<Exception> onInitFailure = e -> initFailure = e;
+                classLoader.loadClass("spark.Spark")
+                        .getMethod("initExceptionHandler", Consumer.class)
+                        .invoke(null, onInitFailure);
+                // -noshutdown: GET /shutdown would otherwise call System.exit on the test JVM
+                return classLoader.loadClass(MAIN_CLASS)
+                        .getMethod("main", String[].class)
+                        .invoke(null, (Object) new String[]{"-port=" + getPort(), "-noshutdown"});
+            });
+        } catch (InvocationTargetException e) {
+            throw new IOException("API failed to start in-process: " + e.getCause(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not load " + MAIN_CLASS + " from " + JAR + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void checkAlive() {
+        if (initFailure != null) {
+            throw new RuntimeException("API failed to start in-process: " + initFailure.getMessage(), initFailure);
+        }
+    }
+
+    @Override
+    protected void terminate() {
+        if (classLoader == null) {
+            return;
+        }
+        try {
+            // Spark stops on a thread of its own, which inherits the context class loader set here
+            withClassLoader(() -> classLoader.loadClass("spark.Spark").getMethod("stop").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error shutting down the in-process API: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        awaitThreadsExited();
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            // the jar stays open until the loader is collected
+        }
+        classLoader = null;
+    }
+
+    // the port closes before Jetty's threads finish, and they still load classes from the jar on the way out
+    private void awaitThreadsExited() {
+        long deadline = System.currentTimeMillis() + THREAD_EXIT_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline && hasLiveThreads()) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean hasLiveThreads() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread != Thread.currentThread() && thread.getContextClassLoader() == classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> T withClassLoader(Callable<T> action) throws ReflectiveOperationException {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            return action.call();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Decodes Todo Manager JSON straight from the response stream into records with Jackson's streaming parser,
+// without reading the body into a String or building a tree of maps first.
+public final class JsonEntityDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonEntityDecoder() {
+    }
+
+    // {"todos":[...]} as answered by /todos, /todos/:id, /projects/:id/tasks and /categories/:id/todos
+    public static List<Todo> todos(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            List<Todo> todos = new ArrayList<>();
+            enterArray(parser, "todos");
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                todos.add(readTodo(parser));
+            }
+            return todos;
+        }
+    }
+
+    public static List<Project> projects(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            List<Project> projects = new ArrayList<>();
+            enterArray(parser, "projects");
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                projects.add(readProject(parser));
+            }
+            return projects;
+        }
+    }
+
+    public static List<Category> categories(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            List<Category> categories = new ArrayList<>();
+            enterArray(parser, "categories");
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                categories.add(readCategory(parser));
+            }
+            return categories;
+        }
+    }
+
+    // a single entity, as answered by a POST or PUT
+    public static Todo todo(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readTodo(parser);
+        }
+    }
+
+    public static Project project(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readProject(parser);
+        }
+    }
+
+    public static Category category(InputStream in) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readCategory(parser);
+        }
+    }
+
+    //----------------------------------------------------------- entities -----------------------------------------------------------//
+
+    private static Todo readTodo(JsonParser parser) throws IOException {
+        String id = null;
+        String title = "";
+        boolean doneStatus = false;
+        String description = "";
+        List<String> categories = List.of();
+        List<String> tasksof = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getText();
+                case "title" -> title = parser.getText();
+                case "doneStatus" -> doneStatus = readBoolean(parser);
+                case "description" -> description = parser.getText();
+                case "categories" -> categories = readIds(parser);
+                case "tasksof" -> tasksof = readIds(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Todo(id, title, doneStatus, description, categories, tasksof);
+    }
+
+    private static Project readProject(JsonParser parser) throws IOException {
+        String id = null;
+        String title = "";
+        boolean completed = false;
+        boolean active = false;
+        String description = "";
+        List<String> tasks = List.of();
+        List<String> categories = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getText();
+                case "title" -> title = parser.getText();
+                case "completed" -> completed = readBoolean(parser);
+                case "active" -> active = readBoolean(parser);
+                case "description" -> description = parser.getText();
+                case "tasks" -> tasks = readIds(parser);
+                case "categories" -> categories = readIds(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Project(id, title, completed, active, description, tasks, categories);
+    }
+
+    private static Category readCategory(JsonParser parser) throws IOException {
+        String id = null;
+        String title = "";
+        String description = "";
+        List<String> todos = List.of();
+        List<String> projects = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getText();
+                case "title" -> title = parser.getText();
+                case "description" -> description = parser.getText();
+                case "todos" -> todos = readIds(parser);
+                case "projects" -> projects = readIds(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Category(id, title, description, todos, projects);
+    }
+
+    //----------------------------------------------------------- tokens -----------------------------------------------------------//
+
+    // relationships are listed as [{"id":"1"}, ...]; anything else in those objects is skipped
+    private static List<String> readIds(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<String> ids = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("id")) {
+                    ids.add(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return ids;
+    }
+
+    // the API sends booleans as strings ("false"), but accept real ones too
+    private static boolean readBoolean(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return parser.getBooleanValue();
+        }
+        return Boolean.parseBoolean(parser.getText());
+    }
+
+    private static void enterArray(JsonParser parser, String name) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals(name) && value == JsonToken.START_ARRAY) {
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IOException("Response has no \"" + name + "\" array.");
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + ".");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Grows one server to each collection size in turn and saves the /todos, /projects and /categories responses
+// as JSON and XML, for the codec benchmarks in the benchmarks module to read.
+// Not part of the default run: mvn test -Dtest=PayloadCapture [-Dtodomanager.payload.sizes=10,100,1000,10000]
+public class PayloadCapture {
+
+    static final Path DIRECTORY = Paths.get("target", "payloads");
+    static final int[] SIZES = Arrays.stream(System.getProperty("todomanager.payload.sizes", "10,100,1000,10000").split(","))
+            .mapToInt(size -> Integer.parseInt(size.trim()))
+            .sorted()
+            .toArray();
+
+    @Test
+    public void capturePayloads() throws Exception {
+        Files.createDirectories(DIRECTORY);
+        TodoManagerServer server = TodoManagerServer.create(TodoManagerServerPool.freePort());
+        server.start();
+        TodoManagerClient client = new TodoManagerClient(CommonTests.getClient(), server.baseUrl());
+        try (BulkOperations bulk = new BulkOperations(client)) {
+            Map<String, Integer> counts = new HashMap<>(Map.of("todos", 2, "projects", 1, "categories", 2));
+            for (int size : SIZES) {
+                grow(client, bulk, counts, size);
+                for (String type : ServerStateReset.ENTITY_TYPES) {
+                    save(client, type, size, "application/json", "json");
+                    save(client, type, size, "application/xml", "xml");
+                }
+            }
+            System.out.println("Captured payloads in " + DIRECTORY.toAbsolutePath() + " (" + bulk.report() + ")");
+        } finally {
+            server.stop();
+        }
+    }
+
+    // new entities get links too, so every payload carries relationship arrays like the seeded data does. Every
+    // link lands on project 1, todo 1 or category 1, and concurrent changes to one relationship end in a
+    // ConcurrentModificationException on the server, so only the creates run in bulk and the links one by one
+    private void grow(TodoManagerClient client, BulkOperations bulk, Map<String, Integer> counts, int size) {
+        for (String type : ServerStateReset.ENTITY_TYPES) {
+            List<JSONObject> entities = new ArrayList<>();
+            for (int i = counts.get(type); i < size; i++) {
+                JSONObject entity = new JSONObject();
+                entity.put("title", type + " " + i);
+                entity.put("description", "captured at collection size " + size);
+                entities.add(entity);
+            }
+            for (ApiResponse created : bulk.seed(type, entities)) {
+                assertEquals(201, created.code(), created.body());
+                String id = (String) created.json().get("id");
+                switch (type) {
+                    case "todos" -> {
+                        assertLinked(client.linkTodoTaskOf(id, "1"));
+                        assertLinked(client.linkTodoCategory(id, "1"));
+                    }
+                    case "projects" -> assertLinked(client.linkProjectCategory(id, "1"));
+                    default -> assertLinked(client.linkCategoryTodo(id, "1"));
+                }
+            }
+            counts.put(type, Math.max(size, counts.get(type)));
+        }
+    }
+
+    private static void assertLinked(ApiResponse response) {
+        assertEquals(201, response.code(), response.method() + " " + response.url() + ": " + response.body());
+    }
+
+    private void save(TodoManagerClient client, String type, int size, String mediaType, String extension) throws Exception {
+        ApiResponse response = client.send(new Request.Builder()
+                .url(client.resolve(type))
+                .header("Accept", mediaType)
+                .get()
+                .build());
+        assertEquals(200, response.code());
+        Files.write(DIRECTORY.resolve(type + "-" + size + "." + extension), response.body().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,32 @@
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// A latency or allocation budget for a test, next to its functional assertions. The test method is the
+// operation: PerfBudgetExtension runs it warmup times untimed, then iterations times timed, against the same
+// server, so it should leave the server as it found it (a GET, or a create it deletes again). The runs call the
+// method directly, so any other InvocationInterceptor registered on the test (a timeout, say) wraps none of them.
+//   @Test @PerfBudget(maxMillis = 20)                  p99 of the calls at most 20 ms
+//   @PerfBudget(percentile = 50, maxMillis = 5)        the median instead
+//   @PerfBudget(maxAllocatedBytes = 64 * 1024)         at most 64 KiB allocated by the test thread per call
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@ExtendWith(PerfBudgetExtension.class)
+public @interface PerfBudget {
+
+    int warmup() default 50;
+
+    // at least 1
+    int iterations() default 200;
+
+    double percentile() default 99;
+
+    // no latency budget when negative
+    double maxMillis() default -1;
+
+    // no allocation budget when negative; counts what the calling thread allocates (request, response, decoding)
+    long maxAllocatedBytes() default -1;
+}
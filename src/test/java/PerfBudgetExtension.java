@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Runs a @PerfBudget test repeatedly and fails it when the measured percentile or allocation is over budget,
+// after printing the distribution. A failing functional assertion in any run fails the test as usual.
+//   todomanager.perf.budgetScale=1.0   multiplies every latency budget, for slower machines
+//   todomanager.perf.enabled=true      false runs each budgeted test once, without measuring
+public class PerfBudgetExtension implements InvocationInterceptor {
+
+    static final double BUDGET_SCALE = Double.parseDouble(System.getProperty("todomanager.perf.budgetScale", "1.0"));
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("todomanager.perf.enabled", "true"));
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    // HotSpot's extension of the standard bean, which can tell what one thread has allocated
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext,
+                                    ExtensionContext extensionContext) throws Throwable {
+        PerfBudget budget = invocationContext.getExecutable().getAnnotation(PerfBudget.class);
+        if (!ENABLED || budget == null) {
+            invocation.proceed();
+            return;
+        }
+        Method method = invocationContext.getExecutable();
+        if (budget.iterations() < 1) {
+            throw new IllegalArgumentException("@PerfBudget on " + method.getName() + " needs at least one timed iteration, not "
+                    + budget.iterations());
+        }
+        method.setAccessible(true);
+        Object target = invocationContext.getTarget().orElse(null);
+        Object[] arguments = invocationContext.getArguments().toArray();
+
+        for (int i = 0; i < budget.warmup(); i++) {
+            run(method, target, arguments);
+        }
+        long[] nanos = new long[budget.iterations()];
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            run(method, target, arguments);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocatedPerCall = (THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore) / Math.max(1, nanos.length);
+        // the runs happened here; JUnit still expects the invocation to be dealt with
+        invocation.skip();
+
+        Arrays.sort(nanos);
+        String name = extensionContext.getRequiredTestClass().getSimpleName() + "." + method.getName();
+        System.out.println(report(name, budget, nanos, allocatedPerCall));
+
+        double limit = budget.maxMillis() * BUDGET_SCALE;
+        double measured = millis(percentile(nanos, budget.percentile()));
+        if (budget.maxMillis() >= 0 && measured > limit) {
+            fail(String.format(Locale.ROOT, "%s: p%s of %.2f ms is over the budget of %.2f ms (%d calls)",
+                    name, format(budget.percentile()), measured, limit, nanos.length));
+        }
+        if (budget.maxAllocatedBytes() >= 0 && allocatedPerCall > budget.maxAllocatedBytes()) {
+            fail(String.format(Locale.ROOT, "%s: %d bytes allocated per call is over the budget of %d bytes",
+                    name, allocatedPerCall, budget.maxAllocatedBytes()));
+        }
+    }
+
+    private static void run(Method method, Object target, Object[] arguments) throws Throwable {
+        try {
+            method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    //----------------------------------------------------------- report -----------------------------------------------------------//
+
+    // nearest rank on the sorted times
+    static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    // percentiles, then how many calls fell in each power-of-two band of milliseconds
+    static String report(String name, PerfBudget budget, long[] sorted, long allocatedPerCall) {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%s: %d calls after %d warmup, min %.2f ms",
+                name, sorted.length, budget.warmup(), millis(sorted[0])));
+        for (double percentile : PERCENTILES) {
+            text.append(String.format(Locale.ROOT, ", p%s %.2f ms", format(percentile), millis(percentile(sorted, percentile))));
+        }
+        text.append(String.format(Locale.ROOT, ", max %.2f ms, %d bytes allocated per call", millis(sorted[sorted.length - 1]), allocatedPerCall));
+        double upper = 0.125;
+        int index = 0;
+        while (index < sorted.length) {
+            int count = 0;
+            while (index < sorted.length && millis(sorted[index]) < upper) {
+                count++;
+                index++;
+            }
+            if (count > 0) {
+                text.append(String.format(Locale.ROOT, "%n  < %8.3f ms %6d %s", upper, count,
+                        "#".repeat((int) Math.ceil(40.0 * count / sorted.length))));
+            }
+            upper *= 2;
+        }
+        return text.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,53 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Drains a child process's stdout and stderr on background threads so a full pipe can never stall it,
+// keeping only the last lines in memory for when a test fails.
+public class ProcessLogPump {
+
+    static final int DEFAULT_CAPACITY = Integer.getInteger("todomanager.log.lines", 200);
+    private static final int MAX_LINE_LENGTH = 2000;
+
+    private final Deque<String> lines = new ArrayDeque<>();
+    private final int capacity;
+
+    public ProcessLogPump(Process process, String name) {
+        this(process, name, DEFAULT_CAPACITY);
+    }
+
+    public ProcessLogPump(Process process, String name, int capacity) {
+        this.capacity = capacity;
+        drain(process.getInputStream(), name + "-stdout", "");
+        drain(process.getErrorStream(), name + "-stderr", "[err] ");
+    }
+
+    private void drain(InputStream stream, String threadName, String prefix) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    append(prefix + (line.length() > MAX_LINE_LENGTH ? line.substring(0, MAX_LINE_LENGTH) + "..." : line));
+                }
+            } catch (IOException e) {
+                // the process is gone and its pipe closed
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void append(String line) {
+        if (lines.size() == capacity) {
+            lines.removeFirst();
+        }
+        lines.addLast(line);
+    }
+
+    public synchronized String tail() {
+        return String.join(System.lineSeparator(), lines);
+    }
+}
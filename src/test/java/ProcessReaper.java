@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Keeps track of every server JVM the harness spawns. The pids are also written to a file of this JVM's own,
+// target/todomanager-pids/<owner pid>.pids, so strays left behind by a harness JVM that was killed outright are
+// reaped by the next run, while the servers of harness JVMs still running next to it (a load run beside mvn
+// test, surefire forks) are left alone.
+public class ProcessReaper {
+
+    static final Path PID_DIRECTORY = Paths.get("target", "todomanager-pids");
+    static final Path PID_FILE = PID_DIRECTORY.resolve(ProcessHandle.current().pid() + ".pids");
+    // first line of a pid file: when its owner started, so an owner pid the OS has handed out again is not taken for it
+    private static final String OWNER_STARTED = startInstant(ProcessHandle.current());
+
+    private static final long GRACE_MS = Long.getLong("todomanager.stop.grace", 5000);
+    private static final long ESCALATION_MS = 2000;
+
+    private static final Set<Process> live = ConcurrentHashMap.newKeySet();
+    private static boolean initialized;
+
+    public static synchronized void register(Process process) {
+        if (!initialized) {
+            initialized = true;
+            reapStrays();
+            Runtime.getRuntime().addShutdownHook(new Thread(ProcessReaper::reapAll, "todomanager-reaper"));
+        }
+        live.add(process);
+        writePidFile();
+    }
+
+    // waits for the process to exit on its own, then asks it to stop, then kills it
+    public static void reap(Process process) {
+        try {
+            if (!awaitExit(process, GRACE_MS)) {
+                process.destroy();
+                if (!awaitExit(process, ESCALATION_MS)) {
+                    process.destroyForcibly();
+                    if (!awaitExit(process, ESCALATION_MS)) {
+                        throw new IllegalStateException("API process " + process.pid() + " did not exit after destroyForcibly.");
+                    }
+                }
+            }
+        } finally {
+            synchronized (ProcessReaper.class) {
+                if (!process.isAlive()) {
+                    live.remove(process);
+                    writePidFile();
+                }
+            }
+        }
+    }
+
+    private static boolean awaitExit(Process process, long millis) {
+        try {
+            process.onExit().get(millis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !process.isAlive();
+        } catch (ExecutionException e) {
+            return !process.isAlive();
+        }
+    }
+
+    private static void reapAll() {
+        for (Process process : live) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+        try {
+            Files.deleteIfExists(PID_FILE);
+        } catch (IOException e) {
+            // nothing left to clean up with
+        }
+    }
+
+    // only the files of owners that are gone, and only pids that still run the Todo Manager jar, in case the OS
+    // has handed the pid to something else
+    private static void reapStrays() {
+        if (!Files.isDirectory(PID_DIRECTORY)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(PID_DIRECTORY, "*.pids")) {
+            for (Path file : files) {
+                reapStrays(file);
+            }
+        } catch (IOException e) {
+            // an unreadable directory only means there is nothing we can safely reap
+        }
+    }
+
+    private static void reapStrays(Path file) {
+        try {
+            String name = file.getFileName().toString();
+            long owner = Long.parseLong(name.substring(0, name.length() - ".pids".length()));
+            List<String> lines = Files.readAllLines(file);
+            String started = lines.isEmpty() ? "" : lines.get(0);
+            boolean ownerAlive = ProcessHandle.of(owner)
+                    .filter(ProcessHandle::isAlive)
+                    .filter(handle -> started.isEmpty() || startInstant(handle).isEmpty() || startInstant(handle).equals(started))
+                    .isPresent();
+            if (ownerAlive) {
+                return;
+            }
+            for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Optional<ProcessHandle> stray = ProcessHandle.of(Long.parseLong(line.trim()));
+                stray.filter(ProcessHandle::isAlive)
+                        .filter(handle -> handle.info().commandLine()
+                                .map(command -> command.contains(TodoManagerServer.JAR.getFileName().toString()))
+                                .orElse(false))
+                        .ifPresent(ProcessHandle::destroyForcibly);
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException | NumberFormatException e) {
+            // an unreadable pid file only means there is nothing we can safely reap
+        }
+    }
+
+    private static String startInstant(ProcessHandle handle) {
+        return handle.info().startInstant().map(String::valueOf).orElse("");
+    }
+
+    private static void writePidFile() {
+        List<String> pids = new ArrayList<>();
+        pids.add(OWNER_STARTED);
+        for (Process process : live) {
+            pids.add(String.valueOf(process.pid()));
+        }
+        try {
+            Files.createDirectories(PID_DIRECTORY);
+            Files.write(PID_FILE, pids);
+        } catch (IOException e) {
+            // the shutdown hook still covers a normal exit of the test JVM
+        }
+    }
+
+    public static int liveCount() {
+        return live.size();
+    }
+}
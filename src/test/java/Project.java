@@ -0,0 +1,10 @@
+import java.util.List;
+
+// A project as the API returns it; relationship fields hold the ids of the related entities.
+public record Project(String id, String title, boolean completed, boolean active, String description, List<String> tasks, List<String> categories) {
+
+    public Project {
+        tasks = List.copyOf(tasks);
+        categories = List.copyOf(categories);
+    }
+}
@@ -17,19 +17,21 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 @TestMethodOrder(MethodOrderer.Random.class)
 @ExtendWith(CommonTests.class)
 public class ProjectsAPITests {
-    static String url = "http://localhost:4567/";
+    static String url() {
+        return CommonTests.url() + "/";
+    }
 
     /* Projects (GET, HEAD, POST) */
     // Get all projects available
     @Test
     public void testProjectsGetRequest() throws IOException {
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
-        assertNotNull(response.body().string());
+        ApiResponse response = CommonTests.api().send(request);
+        assertNotNull(response.body());
         assertEquals(200, response.code());
     }
 
@@ -37,11 +39,11 @@ public class ProjectsAPITests {
     @Test
     public void testProjectsGetWrongRequest() throws IOException {
         Request request = new Request.Builder()
-                .url(url + "project")
+                .url(url() + "project")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
     }
 
@@ -49,13 +51,13 @@ public class ProjectsAPITests {
     @Test
     public void testProjectsHeadRequest() throws IOException {
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
-        assertNotNull(response.headers());
-        assertEquals("application/json", response.headers().get("Content-Type"));
+        ApiResponse response = CommonTests.api().send(request);
+        assertNotNull(response.contentType());
+        assertEquals("application/json", response.contentType());
         assertEquals(200, response.code());
     }
 
@@ -71,14 +73,14 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .post(requestBody)
                 .build();
 
         // Ensure response went through (201)
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         JSONParser parser = new JSONParser();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
@@ -99,14 +101,14 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .post(requestBody)
                 .build();
 
         // Ensure response was bad request
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(400, response.code());
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         JSONParser parser = new JSONParser();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
@@ -124,16 +126,16 @@ public class ProjectsAPITests {
         int id = 1;
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         JSONParser parser = new JSONParser();
 
         // Parse the array of JSON objects step by step to check id
-        JSONObject responseObj = (JSONObject) parser.parse(response.body().string());
+        JSONObject responseObj = (JSONObject) parser.parse(response.body());
         JSONArray jsonArray = (JSONArray) parser.parse(responseObj.get("projects").toString());
         JSONObject project = (JSONObject) parser.parse(jsonArray.get(0).toString());
 
@@ -149,15 +151,15 @@ public class ProjectsAPITests {
         String error = "Could not find an instance with projects/" + id;
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
 
         JSONParser parser = new JSONParser();
-        JSONObject responseObj = (JSONObject) parser.parse(response.body().string());
+        JSONObject responseObj = (JSONObject) parser.parse(response.body());
         JSONArray responseArr = (JSONArray) parser.parse(responseObj.get("errorMessages").toString());
 
         // Check if an error was returned
@@ -171,14 +173,14 @@ public class ProjectsAPITests {
         int id = 1;
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(200, response.code());
-        assertNotNull(response.headers());
+        assertNotNull(response.contentType());
     }
 
     // Regular post request for original project
@@ -203,14 +205,14 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONParser parser = new JSONParser();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
 
@@ -237,15 +239,15 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
 
         JSONParser parser = new JSONParser();
-        JSONObject responseObj = (JSONObject) parser.parse(response.body().string());
+        JSONObject responseObj = (JSONObject) parser.parse(response.body());
         JSONArray responseArr = (JSONArray) parser.parse(responseObj.get("errorMessages").toString());
 
         // Check if an error was returned
@@ -264,11 +266,11 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request requestPost = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .post(requestBodyPost)
                 .build();
 
-        CommonTests.getClient().newCall(requestPost).execute();
+        CommonTests.api().send(requestPost);
 
         // Values for testing
         String newTitle = "School Work";
@@ -286,14 +288,14 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request requestPut = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .put(requestBodyPut)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(requestPut).execute();
+        ApiResponse response = CommonTests.api().send(requestPut);
         assertEquals(200, response.code());
 
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONParser parser = new JSONParser();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
 
@@ -310,11 +312,11 @@ public class ProjectsAPITests {
         int id = 1;
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
     }
 
@@ -325,15 +327,15 @@ public class ProjectsAPITests {
         int id = 3;
 
         Request request = new Request.Builder()
-                .url(url + "projects/" + id)
+                .url(url() + "projects/" + id)
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
 
         JSONParser parser = new JSONParser();
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
         JSONArray arr = (JSONArray) parser.parse(responseObj.get("errorMessages").toString());
 
@@ -352,14 +354,14 @@ public class ProjectsAPITests {
                 MediaType.parse("application/json"));
 
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .post(requestBody)
                 .build();
 
         // Ensure response was bad request
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(400, response.code());
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         JSONParser parser = new JSONParser();
         JSONObject responseObj = (JSONObject) parser.parse(responseBody);
@@ -382,12 +384,12 @@ public class ProjectsAPITests {
                 MediaType.parse("text/xml; charset=utf-8"));
 
         Request request = new Request.Builder()
-                .url(url + "projects")
+                .url(url() + "projects")
                 .post(requestBody)
                 .build();
 
         // Ensure response was bad request
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(400, response.code());
     }
 
@@ -399,11 +401,11 @@ public class ProjectsAPITests {
     @Test
     public void testProjectTodoRelationshipGet() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -415,11 +417,11 @@ public class ProjectsAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .post(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -430,11 +432,11 @@ public class ProjectsAPITests {
     public void testProjectTodoRelationshipPut() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .put(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -445,11 +447,11 @@ public class ProjectsAPITests {
     public void testProjectTodoRelationshipPatch() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .patch(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -458,30 +460,30 @@ public class ProjectsAPITests {
     @Test
     public void testProjectTodoRelationshipDeleteValid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .delete()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
     }
 
     @Test
     public void testProjectTodoRelationshipDeleteDoubleInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .delete()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(404, response.code());
     }
 
@@ -490,10 +492,10 @@ public class ProjectsAPITests {
     @Test
     public void testProjectTodoRelationshipDeleteInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/2023")
+            .url(CommonTests.url() + "/projects/1/tasks/2023")
             .delete()
             .build();
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
 
@@ -503,11 +505,11 @@ public class ProjectsAPITests {
     @Test
     public void testProjectTodoRelationshipHead() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/tasks/1")
+            .url(CommonTests.url() + "/projects/1/tasks/1")
             .head()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -519,11 +521,11 @@ public class ProjectsAPITests {
     @Test
     public void testProjectCategoryRelationshipGet() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/1")
+            .url(CommonTests.url() + "/projects/1/categories/1")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -535,11 +537,11 @@ public class ProjectsAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/1")
+            .url(CommonTests.url() + "/projects/1/categories/1")
             .post(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -550,11 +552,11 @@ public class ProjectsAPITests {
     public void testProjectCategoryRelationshipPut() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/1")
+            .url(CommonTests.url() + "/projects/1/categories/1")
             .put(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -565,11 +567,11 @@ public class ProjectsAPITests {
     public void testProjectCategoryRelationshipPatch() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/1")
+            .url(CommonTests.url() + "/projects/1/categories/1")
             .patch(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -585,21 +587,21 @@ public class ProjectsAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories")
+            .url(CommonTests.url() + "/projects/1/categories")
             .post(requestBody)
             .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/3")
+            .url(CommonTests.url() + "/projects/1/categories/3")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
 
@@ -615,29 +617,29 @@ public class ProjectsAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories")
+            .url(CommonTests.url() + "/projects/1/categories")
             .post(requestBody)
             .build();
 
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/3")
+            .url(CommonTests.url() + "/projects/1/categories/3")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/3")
+            .url(CommonTests.url() + "/projects/1/categories/3")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(404, response.code());
 
 
@@ -647,10 +649,10 @@ public class ProjectsAPITests {
     @Test
     public void testProjectCategoryRelationshipDeleteInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/2023")
+            .url(CommonTests.url() + "/projects/1/categories/2023")
             .delete()
             .build();
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
 
@@ -660,11 +662,11 @@ public class ProjectsAPITests {
     @Test
     public void testProjectCategoryRelationshipHead() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/projects/1/categories/1")
+            .url(CommonTests.url() + "/projects/1/categories/1")
             .head()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
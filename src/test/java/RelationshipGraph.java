@@ -0,0 +1,244 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Every relationship edge between todos, projects and categories, held as int ids in compressed rows (the
+// targets of one entity sit next to each other in one int[]) rather than nested JSONArrays. check() walks each
+// edge once and looks its inverse up in a hash set of packed (from, to) pairs, so a graph with hundreds of
+// thousands of edges is verified in linear time, however they are spread over the entities.
+public final class RelationshipGraph {
+
+    // owner type, relationship, target type, and the relationship the server keeps as its inverse (null if one-way)
+    private static final String[][] RELATIONSHIPS = {
+            {"todos", "tasksof", "projects", "tasks"},
+            {"todos", "categories", "categories", null},
+            {"projects", "tasks", "todos", "tasksof"},
+            {"projects", "categories", "categories", null},
+            {"categories", "todos", "todos", null},
+            {"categories", "projects", "projects", null}};
+
+    public record Violation(String relationship, int from, int to, String problem) {
+        @Override
+        public String toString() {
+            return relationship + " " + from + " -> " + to + ": " + problem;
+        }
+    }
+
+    private final Map<String, BitSet> entities = new LinkedHashMap<>();
+    private final Map<String, Adjacency> edges = new LinkedHashMap<>();
+
+    private RelationshipGraph() {
+    }
+
+    public static RelationshipGraph load(TodoManagerClient client) {
+        return of(client.fetchTodos(), client.fetchProjects(), client.fetchCategories());
+    }
+
+    public static RelationshipGraph of(List<Todo> todos, List<Project> projects, List<Category> categories) {
+        RelationshipGraph graph = new RelationshipGraph();
+        graph.add("todos", todos, Todo::id, Map.of("tasksof", Todo::tasksof, "categories", Todo::categories));
+        graph.add("projects", projects, Project::id, Map.of("tasks", Project::tasks, "categories", Project::categories));
+        graph.add("categories", categories, Category::id, Map.of("todos", Category::todos, "projects", Category::projects));
+        return graph;
+    }
+
+    private <T> void add(String type, List<T> list, Function<T, String> id, Map<String, Function<T, List<String>>> relationships) {
+        BitSet ids = new BitSet();
+        Map<String, EdgeList> pending = new LinkedHashMap<>();
+        relationships.keySet().forEach(name -> pending.put(name, new EdgeList()));
+        for (T entity : list) {
+            int from = Integer.parseInt(id.apply(entity));
+            ids.set(from);
+            for (Map.Entry<String, Function<T, List<String>>> relationship : relationships.entrySet()) {
+                EdgeList edgeList = pending.get(relationship.getKey());
+                for (String to : relationship.getValue().apply(entity)) {
+                    edgeList.add(from, Integer.parseInt(to));
+                }
+            }
+        }
+        entities.put(type, ids);
+        pending.forEach((name, edgeList) -> edges.put(type + "/" + name, edgeList.compress()));
+    }
+
+    //----------------------------------------------------------- queries -----------------------------------------------------------//
+
+    public boolean exists(String type, int id) {
+        return entities.get(type).get(id);
+    }
+
+    public int[] related(String type, int id, String relationship) {
+        return adjacency(type, relationship).targets(id);
+    }
+
+    public boolean hasEdge(String type, int id, String relationship, int relatedId) {
+        for (int target : related(type, id, relationship)) {
+            if (target == relatedId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int edgeCount() {
+        int count = 0;
+        for (Adjacency adjacency : edges.values()) {
+            count += adjacency.size();
+        }
+        return count;
+    }
+
+    private Adjacency adjacency(String type, String relationship) {
+        Adjacency adjacency = edges.get(type + "/" + relationship);
+        if (adjacency == null) {
+            throw new IllegalArgumentException("No relationship " + relationship + " on " + type);
+        }
+        return adjacency;
+    }
+
+    //----------------------------------------------------------- consistency -----------------------------------------------------------//
+
+    // every tasksof edge needs its tasks edge and the other way round, and a mirrored edge never points at a
+    // deleted entity. The other relationships are one-way on the server and may outlive their target
+    public List<Violation> check() {
+        List<Violation> violations = new ArrayList<>();
+        for (String[] relationship : RELATIONSHIPS) {
+            if (relationship[3] == null) {
+                continue;
+            }
+            String name = relationship[0] + "/" + relationship[1];
+            Adjacency forward = edges.get(name);
+            LongSet inverse = edges.get(relationship[2] + "/" + relationship[3]).packed();
+            BitSet targets = entities.get(relationship[2]);
+            for (int row = 0; row < forward.rows(); row++) {
+                for (int index = forward.offsets[row]; index < forward.offsets[row + 1]; index++) {
+                    int to = forward.targets[index];
+                    if (!targets.get(to)) {
+                        violations.add(new Violation(name, row, to, "points at a missing " + relationship[2]));
+                    } else if (!inverse.contains(pack(to, row))) {
+                        violations.add(new Violation(name, row, to, "has no " + relationship[2] + "/" + relationship[3] + " edge back"));
+                    }
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    //----------------------------------------------------------- storage -----------------------------------------------------------//
+
+    // edges as they are read, before they are grouped by source
+    private static final class EdgeList {
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int size;
+        private int maxFrom = -1;
+
+        void add(int source, int target) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = source;
+            to[size] = target;
+            size++;
+            maxFrom = Math.max(maxFrom, source);
+        }
+
+        // counting sort by source: one pass to count, one to place
+        Adjacency compress() {
+            int[] offsets = new int[maxFrom + 2];
+            for (int i = 0; i < size; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int row = 0; row < offsets.length - 1; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+            int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+            int[] targets = new int[size];
+            for (int i = 0; i < size; i++) {
+                targets[next[from[i]]++] = to[i];
+            }
+            return new Adjacency(offsets, targets);
+        }
+    }
+
+    // targets of source s are targets[offsets[s] .. offsets[s + 1])
+    private static final class Adjacency {
+        final int[] offsets;
+        final int[] targets;
+
+        Adjacency(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        int rows() {
+            return offsets.length - 1;
+        }
+
+        int size() {
+            return targets.length;
+        }
+
+        int[] targets(int source) {
+            if (source < 0 || source >= rows()) {
+                return new int[0];
+            }
+            return Arrays.copyOfRange(targets, offsets[source], offsets[source + 1]);
+        }
+
+        LongSet packed() {
+            LongSet set = new LongSet(targets.length);
+            for (int row = 0; row < rows(); row++) {
+                for (int index = offsets[row]; index < offsets[row + 1]; index++) {
+                    set.add(pack(row, targets[index]));
+                }
+            }
+            return set;
+        }
+    }
+
+    // open addressing over a long[], so a few hundred thousand edges are not boxed into Long objects
+    private static final class LongSet {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private final long[] slots;
+        private final int mask;
+
+        LongSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            mask = capacity - 1;
+        }
+
+        void add(long key) {
+            int slot = slot(key);
+            while (slots[slot] != EMPTY && slots[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = key;
+        }
+
+        boolean contains(long key) {
+            int slot = slot(key);
+            while (slots[slot] != EMPTY) {
+                if (slots[slot] == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
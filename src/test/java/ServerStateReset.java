@@ -0,0 +1,172 @@
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Brings a running server back to the data it was seeded with (todos 1-2, project 1, categories 1-2 and
+// their links) through the REST API. The server never hands out an id twice, so once a test creates or
+// deletes an entity the ids can no longer match a fresh server and only a restart resets it.
+public class ServerStateReset {
+
+    static final String[] ENTITY_TYPES = {"todos", "projects", "categories"};
+    static final Set<String> RELATIONSHIPS = Set.of("tasksof", "tasks", "categories", "todos", "projects");
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final Map<Integer, ServerStateReset> trackers = new ConcurrentHashMap<>();
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final Map<String, Map<String, Map<String, Object>>> seed;
+    private volatile boolean mutated;
+    private volatile boolean idsConsumed;
+
+    private ServerStateReset(OkHttpClient client, String baseUrl, Map<String, Map<String, Map<String, Object>>> seed) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.seed = seed;
+    }
+
+    // captures the current (freshly started) state as the seed and starts tracking requests to this server
+    public static ServerStateReset track(OkHttpClient client, TodoManagerServer server) {
+        ServerStateReset reset = new ServerStateReset(client, server.baseUrl(), snapshot(client, server.baseUrl()));
+        trackers.put(server.getPort(), reset);
+        return reset;
+    }
+
+    public static void untrack(TodoManagerServer server) {
+        trackers.remove(server.getPort());
+    }
+
+    // added to the shared client so every request a test makes is seen by the tracker of its server
+    public static Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            ServerStateReset reset = trackers.get(request.url().port());
+            if (reset != null) {
+                reset.observe(request, response);
+            }
+            return response;
+        };
+    }
+
+    private void observe(Request request, Response response) throws IOException {
+        String method = request.method();
+        if (method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")) {
+            return;
+        }
+        mutated = true;
+        // a POST to a collection draws an id even when validation rejects it; only a new relationship
+        // (201 with an empty body) leaves the counters alone
+        boolean link = response.code() == 201 && response.peekBody(1).contentLength() == 0;
+        if (method.equals("POST") && request.url().pathSize() % 2 == 1 && !link) {
+            idsConsumed = true;
+        }
+        if (method.equals("DELETE") && request.url().pathSize() == 2 && response.isSuccessful()) {
+            idsConsumed = true;
+        }
+    }
+
+    public boolean isMutated() {
+        return mutated;
+    }
+
+    public boolean requiresRestart() {
+        return idsConsumed;
+    }
+
+    // puts every seeded entity back (a PUT also drops its relationships), then re-adds the seeded links
+    public void restore() {
+        for (String type : ENTITY_TYPES) {
+            for (Map.Entry<String, Map<String, Object>> entity : seed.get(type).entrySet()) {
+                JSONObject fields = new JSONObject();
+                for (Map.Entry<String, Object> field : entity.getValue().entrySet()) {
+                    if (!RELATIONSHIPS.contains(field.getKey()) && !field.getKey().equals("id")) {
+                        fields.put(field.getKey(), toJsonValue((String) field.getValue()));
+                    }
+                }
+                send(new Request.Builder()
+                        .url(baseUrl + "/" + type + "/" + entity.getKey())
+                        .put(RequestBody.create(JSON, fields.toString()))
+                        .build(), 200);
+            }
+        }
+        for (String type : ENTITY_TYPES) {
+            for (Map.Entry<String, Map<String, Object>> entity : seed.get(type).entrySet()) {
+                for (Map.Entry<String, Object> field : entity.getValue().entrySet()) {
+                    if (!RELATIONSHIPS.contains(field.getKey())) {
+                        continue;
+                    }
+                    for (Object relatedId : (Set<?>) field.getValue()) {
+                        JSONObject link = new JSONObject();
+                        link.put("id", relatedId);
+                        send(new Request.Builder()
+                                .url(baseUrl + "/" + type + "/" + entity.getKey() + "/" + field.getKey())
+                                .post(RequestBody.create(JSON, link.toString()))
+                                .build(), 201);
+                    }
+                }
+            }
+        }
+        mutated = false;
+    }
+
+    public boolean matchesSeed() {
+        return seed.equals(snapshot(client, baseUrl));
+    }
+
+    private void send(Request request, int expectedCode) {
+        TrafficRecorder.unrecorded(() -> {
+            try (Response response = client.newCall(request).execute()) {
+                if (response.code() != expectedCode) {
+                    throw new IllegalStateException(request.method() + " " + request.url() + " answered " + response.code() + " while resetting the API.");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error resetting the API: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static Object toJsonValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        return value;
+    }
+
+    // type -> id -> field -> value, where relationship fields hold the set of related ids
+    static Map<String, Map<String, Map<String, Object>>> snapshot(OkHttpClient client, String baseUrl) {
+        return TrafficRecorder.unrecorded(() -> read(client, baseUrl));
+    }
+
+    private static Map<String, Map<String, Map<String, Object>>> read(OkHttpClient client, String baseUrl) {
+        Map<String, Map<String, Map<String, Object>>> snapshot = new HashMap<>();
+        JSONParser parser = new JSONParser();
+        for (String type : ENTITY_TYPES) {
+            Request request = new Request.Builder()
+                    .url(baseUrl + "/" + type)
+                    .get()
+                    .build();
+            try (Response response = client.newCall(request).execute()) {
+                JSONObject responseJson = (JSONObject) parser.parse(response.body().string());
+                Map<String, Map<String, Object>> entities = SnapshotDiff.index((JSONArray) responseJson.get(type));
+                snapshot.put(type, entities);
+            } catch (IOException | ParseException e) {
+                throw new RuntimeException("Error reading the API state: " + e.getMessage(), e);
+            }
+        }
+        return snapshot;
+    }
+}
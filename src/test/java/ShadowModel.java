@@ -0,0 +1,309 @@
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// What the server should hold, kept up to date from every successful POST, PUT and DELETE the shared client
+// sends, so a test can check just the entities it touched instead of downloading whole collections before and
+// after. Entities are kept as SnapshotDiff indexes them (id -> field -> value, relationships as id sets). Only
+// tasks/tasksof is mirrored by the server; the other relationships are one-way and outlive a deleted target.
+public class ShadowModel {
+
+    private record Relationship(String target, String mirror) {
+    }
+
+    // type/relationship -> the type it points at and, when the server keeps both sides, the other side's name
+    private static final Map<String, Relationship> RELATIONSHIPS = Map.of(
+            "todos/tasksof", new Relationship("projects", "tasks"),
+            "todos/categories", new Relationship("categories", null),
+            "projects/tasks", new Relationship("todos", "tasksof"),
+            "projects/categories", new Relationship("categories", null),
+            "categories/todos", new Relationship("todos", null),
+            "categories/projects", new Relationship("projects", null));
+
+    private static final Map<Integer, ShadowModel> models = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Map<String, Object>>> entities = new HashMap<>();
+    private final Set<String> touched = new TreeSet<>();
+    private String lostTrack;
+
+    private ShadowModel(Map<String, Map<String, Map<String, Object>>> state) {
+        state.forEach((type, byId) -> {
+            Map<String, Map<String, Object>> copy = new HashMap<>();
+            byId.forEach((id, fields) -> copy.put(id, copyFields(fields)));
+            entities.put(type, copy);
+        });
+    }
+
+    // starts modelling a server that currently holds the given snapshot (see ServerStateReset.snapshot)
+    public static ShadowModel open(TodoManagerServer server, Map<String, Map<String, Map<String, Object>>> state) {
+        ShadowModel model = new ShadowModel(state);
+        models.put(server.getPort(), model);
+        return model;
+    }
+
+    public static void close(TodoManagerServer server) {
+        models.remove(server.getPort());
+    }
+
+    public static ShadowModel of(TodoManagerServer server) {
+        ShadowModel model = models.get(server.getPort());
+        if (model == null) {
+            throw new IllegalStateException("No shadow model for the server on port " + server.getPort());
+        }
+        return model;
+    }
+
+    // added to the shared client next to ServerStateReset.interceptor()
+    public static Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            ShadowModel model = models.get(request.url().port());
+            String method = request.method();
+            boolean mutation = !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS");
+            if (model != null && mutation && response.isSuccessful()) {
+                model.observe(request, response);
+            }
+            return response;
+        };
+    }
+
+    //----------------------------------------------------------- tracking -----------------------------------------------------------//
+
+    private synchronized void observe(Request request, Response response) throws IOException {
+        List<String> path = request.url().pathSegments();
+        String method = request.method();
+        try {
+            if (path.size() == 1 && method.equals("POST") && entities.containsKey(path.get(0))) {
+                putEntity(path.get(0), readEntity(response, path.get(0)));
+            } else if (path.size() == 2 && entities.containsKey(path.get(0)) && (method.equals("POST") || method.equals("PUT"))) {
+                putEntity(path.get(0), readEntity(response, path.get(0)));
+            } else if (path.size() == 2 && entities.containsKey(path.get(0)) && method.equals("DELETE")) {
+                removeEntity(path.get(0), path.get(1));
+            } else if (path.size() == 3 && method.equals("POST") && relationship(path.get(0), path.get(2)) != null) {
+                Relationship relationship = relationship(path.get(0), path.get(2));
+                String relatedId;
+                if (response.peekBody(1).contentLength() == 0) {
+                    relatedId = String.valueOf(((JSONObject) new JSONParser().parse(requestText(request))).get("id"));
+                } else {
+                    // no id in the body: the related entity was created along with the link
+                    Map<String, Object> created = readEntity(response, relationship.target());
+                    putEntity(relationship.target(), created);
+                    relatedId = (String) created.get("id");
+                }
+                link(path.get(0), path.get(1), path.get(2), relatedId);
+            } else if (path.size() == 4 && method.equals("DELETE") && relationship(path.get(0), path.get(2)) != null) {
+                unlink(path.get(0), path.get(1), path.get(2), path.get(3));
+            } else {
+                lostTrack = method + " " + request.url().encodedPath();
+            }
+        } catch (ParseException | RuntimeException e) {
+            lostTrack = method + " " + request.url().encodedPath() + " (" + e.getMessage() + ")";
+        }
+    }
+
+    private static Relationship relationship(String type, String name) {
+        return RELATIONSHIPS.get(type + "/" + name);
+    }
+
+    // the entity a successful POST or PUT answers with, in JSON or XML
+    private static Map<String, Object> readEntity(Response response, String type) throws IOException, ParseException {
+        MediaType contentType = response.body().contentType();
+        byte[] body = response.peekBody(Long.MAX_VALUE).bytes();
+        if (contentType != null && contentType.subtype().equals("xml")) {
+            Record entity = switch (type) {
+                case "todos" -> XmlEntityCodec.todo(new ByteArrayInputStream(body));
+                case "projects" -> XmlEntityCodec.project(new ByteArrayInputStream(body));
+                default -> XmlEntityCodec.category(new ByteArrayInputStream(body));
+            };
+            return SnapshotDiff.indexRecords(List.of(entity)).values().iterator().next();
+        }
+        JSONArray single = new JSONArray();
+        single.add(new JSONParser().parse(new String(body, StandardCharsets.UTF_8)));
+        return SnapshotDiff.index(single).values().iterator().next();
+    }
+
+    private static String requestText(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        if (request.body() != null) {
+            request.body().writeTo(buffer);
+        }
+        return buffer.readUtf8();
+    }
+
+    // the answer to a POST or PUT is the whole entity; a PUT drops its relationships, and the server drops
+    // the mirrored side of those along with them
+    private void putEntity(String type, Map<String, Object> fields) {
+        String id = (String) fields.get("id");
+        Map<String, Object> previous = entities.get(type).put(id, fields);
+        touched.add(type + "/" + id);
+        for (Map.Entry<String, Relationship> relationship : RELATIONSHIPS.entrySet()) {
+            String[] key = relationship.getKey().split("/");
+            Relationship mirrored = relationship.getValue();
+            if (!key[0].equals(type) || mirrored.mirror() == null) {
+                continue;
+            }
+            Set<String> before = previous != null ? ids(previous, key[1]) : Set.of();
+            Set<String> after = ids(fields, key[1]);
+            for (String relatedId : before) {
+                if (!after.contains(relatedId)) {
+                    removeId(mirrored.target(), relatedId, mirrored.mirror(), id);
+                }
+            }
+            for (String relatedId : after) {
+                if (!before.contains(relatedId)) {
+                    addId(mirrored.target(), relatedId, mirrored.mirror(), id);
+                }
+            }
+        }
+    }
+
+    private void removeEntity(String type, String id) {
+        Map<String, Object> previous = entities.get(type).remove(id);
+        touched.add(type + "/" + id);
+        if (previous == null) {
+            return;
+        }
+        for (Map.Entry<String, Relationship> relationship : RELATIONSHIPS.entrySet()) {
+            String[] key = relationship.getKey().split("/");
+            Relationship mirrored = relationship.getValue();
+            if (key[0].equals(type) && mirrored.mirror() != null) {
+                for (String relatedId : ids(previous, key[1])) {
+                    removeId(mirrored.target(), relatedId, mirrored.mirror(), id);
+                }
+            }
+        }
+    }
+
+    private void link(String type, String id, String name, String relatedId) {
+        addId(type, id, name, relatedId);
+        Relationship relationship = relationship(type, name);
+        if (relationship.mirror() != null) {
+            addId(relationship.target(), relatedId, relationship.mirror(), id);
+        }
+    }
+
+    private void unlink(String type, String id, String name, String relatedId) {
+        removeId(type, id, name, relatedId);
+        Relationship relationship = relationship(type, name);
+        if (relationship.mirror() != null) {
+            removeId(relationship.target(), relatedId, relationship.mirror(), id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addId(String type, String id, String name, String relatedId) {
+        Map<String, Object> entity = entities.get(type).get(id);
+        if (entity != null) {
+            ((Set<String>) entity.computeIfAbsent(name, key -> new HashSet<String>())).add(relatedId);
+            touched.add(type + "/" + id);
+        }
+    }
+
+    // an empty relationship is left out, as the API does
+    private void removeId(String type, String id, String name, String relatedId) {
+        Map<String, Object> entity = entities.get(type).get(id);
+        if (entity != null && entity.get(name) instanceof Set<?> ids) {
+            ids.remove(relatedId);
+            if (ids.isEmpty()) {
+                entity.remove(name);
+            }
+            touched.add(type + "/" + id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> ids(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value instanceof Set<?> ? new HashSet<>((Set<String>) value) : Set.of();
+    }
+
+    private static Map<String, Object> copyFields(Map<String, Object> fields) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        fields.forEach((name, value) -> copy.put(name, value instanceof Set<?> ids ? new HashSet<>(ids) : value));
+        return copy;
+    }
+
+    //----------------------------------------------------------- verification -----------------------------------------------------------//
+
+    // "type/id" of every entity a mutation created, changed, linked or removed
+    public synchronized Set<String> touched() {
+        return new TreeSet<>(touched);
+    }
+
+    public synchronized boolean hasLostTrack() {
+        return lostTrack != null;
+    }
+
+    // fetches only the touched entities, one GET each; a removed one must answer 404. Type -> differences, empty if none
+    public synchronized Map<String, SnapshotDiff> verifyTouched(TodoManagerClient client) {
+        if (lostTrack != null) {
+            throw new IllegalStateException("The shadow model cannot follow " + lostTrack + "; run an audit instead.");
+        }
+        Map<String, Map<String, Map<String, Object>>> expected = new HashMap<>();
+        Map<String, Map<String, Map<String, Object>>> actual = new HashMap<>();
+        for (String entity : touched) {
+            String type = entity.substring(0, entity.indexOf('/'));
+            String id = entity.substring(entity.indexOf('/') + 1);
+            Map<String, Object> fields = entities.get(type).get(id);
+            if (fields != null) {
+                expected.computeIfAbsent(type, key -> new HashMap<>()).put(id, fields);
+            }
+            ApiResponse response = client.find(type, id);
+            if (response.code() == 200) {
+                actual.computeIfAbsent(type, key -> new HashMap<>()).putAll(SnapshotDiff.index((JSONArray) response.json().get(type)));
+            } else if (response.code() != 404) {
+                throw new IllegalStateException("GET " + response.url() + " answered " + response.code());
+            }
+        }
+        Map<String, SnapshotDiff> differences = new LinkedHashMap<>();
+        for (String type : ServerStateReset.ENTITY_TYPES) {
+            SnapshotDiff diff = SnapshotDiff.between(expected.getOrDefault(type, Map.of()), actual.getOrDefault(type, Map.of()));
+            if (!diff.isEmpty()) {
+                differences.put(type, diff);
+            }
+        }
+        return differences;
+    }
+
+    // the occasional full comparison: every collection is downloaded and compared by checksum first (an index's
+    // hashCode does not depend on order), diffed only when that differs. Type -> differences, empty if none
+    public synchronized Map<String, SnapshotDiff> audit(TodoManagerClient client) {
+        Map<String, List<? extends Record>> listings = Map.of(
+                "todos", client.fetchTodos(),
+                "projects", client.fetchProjects(),
+                "categories", client.fetchCategories());
+        Map<String, SnapshotDiff> differences = new LinkedHashMap<>();
+        for (String type : ServerStateReset.ENTITY_TYPES) {
+            Map<String, Map<String, Object>> server = SnapshotDiff.indexRecords(listings.get(type));
+            Map<String, Map<String, Object>> model = entities.get(type);
+            if (server.hashCode() == model.hashCode() && server.equals(model)) {
+                continue;
+            }
+            differences.put(type, SnapshotDiff.between(model, server));
+        }
+        if (differences.isEmpty()) {
+            touched.clear();
+            lostTrack = null;
+        }
+        return differences;
+    }
+}
@@ -0,0 +1,147 @@
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+// What changed between two listings of one entity type (todos, projects or categories). Both sides are indexed
+// by id in a hash map first, so n entities against m cost O(n + m) instead of scanning one list per entity of
+// the other. The indexes are built from raw JSON listings or from the decoded records, so the two compare alike.
+public final class SnapshotDiff {
+
+    public record FieldChange(Object before, Object after) {
+    }
+
+    private final Map<String, Map<String, Object>> added = new TreeMap<>();
+    private final Map<String, Map<String, Object>> removed = new TreeMap<>();
+    private final Map<String, Map<String, FieldChange>> changed = new TreeMap<>();
+
+    private SnapshotDiff(Map<String, Map<String, Object>> before, Map<String, Map<String, Object>> after) {
+        for (Map.Entry<String, Map<String, Object>> entity : before.entrySet()) {
+            Map<String, Object> now = after.get(entity.getKey());
+            if (now == null) {
+                removed.put(entity.getKey(), entity.getValue());
+                continue;
+            }
+            Map<String, FieldChange> fields = new LinkedHashMap<>();
+            Set<String> names = new LinkedHashSet<>(entity.getValue().keySet());
+            names.addAll(now.keySet());
+            for (String name : names) {
+                Object was = entity.getValue().get(name);
+                Object is = now.get(name);
+                if (!Objects.equals(was, is)) {
+                    fields.put(name, new FieldChange(was, is));
+                }
+            }
+            if (!fields.isEmpty()) {
+                changed.put(entity.getKey(), fields);
+            }
+        }
+        for (Map.Entry<String, Map<String, Object>> entity : after.entrySet()) {
+            if (!before.containsKey(entity.getKey())) {
+                added.put(entity.getKey(), entity.getValue());
+            }
+        }
+    }
+
+    public static SnapshotDiff between(Map<String, Map<String, Object>> before, Map<String, Map<String, Object>> after) {
+        return new SnapshotDiff(before, after);
+    }
+
+    //----------------------------------------------------------- indexing -----------------------------------------------------------//
+
+    // id -> field -> value; scalars as the API's strings ("false"), relationships as the set of related ids
+    public static Map<String, Map<String, Object>> index(JSONArray entities) {
+        Map<String, Map<String, Object>> index = new HashMap<>();
+        for (Object entityObject : entities) {
+            JSONObject entity = (JSONObject) entityObject;
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (Object key : entity.keySet()) {
+                Object value = entity.get(key);
+                if (value instanceof JSONArray related) {
+                    Set<String> ids = new HashSet<>();
+                    for (Object relation : related) {
+                        ids.add((String) ((JSONObject) relation).get("id"));
+                    }
+                    fields.put((String) key, ids);
+                } else {
+                    fields.put((String) key, String.valueOf(value));
+                }
+            }
+            index.put((String) entity.get("id"), fields);
+        }
+        return index;
+    }
+
+    // the same shape from Todo, Project or Category records, so a decoded listing diffs against a raw one
+    public static Map<String, Map<String, Object>> indexRecords(List<? extends Record> entities) {
+        Map<String, Map<String, Object>> index = new HashMap<>();
+        for (Record entity : entities) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (RecordComponent component : entity.getClass().getRecordComponents()) {
+                Object value;
+                try {
+                    value = component.getAccessor().invoke(entity);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Could not read " + component.getName() + " of " + entity, e);
+                }
+                if (value instanceof Collection<?> related) {
+                    if (related.isEmpty()) {
+                        // the API leaves out a relationship with nothing in it
+                        continue;
+                    }
+                    Set<String> ids = new HashSet<>();
+                    for (Object id : related) {
+                        ids.add(String.valueOf(id));
+                    }
+                    fields.put(component.getName(), ids);
+                } else if (value != null) {
+                    fields.put(component.getName(), String.valueOf(value));
+                }
+            }
+            index.put((String) fields.get("id"), fields);
+        }
+        return index;
+    }
+
+    //----------------------------------------------------------- results -----------------------------------------------------------//
+
+    public Map<String, Map<String, Object>> added() {
+        return added;
+    }
+
+    public Map<String, Map<String, Object>> removed() {
+        return removed;
+    }
+
+    // id -> field -> before and after, only for the fields that differ
+    public Map<String, Map<String, FieldChange>> changed() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "no differences";
+        }
+        StringBuilder text = new StringBuilder();
+        added.keySet().forEach(id -> text.append("\n  + ").append(id));
+        removed.keySet().forEach(id -> text.append("\n  - ").append(id));
+        changed.forEach((id, fields) -> fields.forEach((field, change) -> text.append("\n  ~ ").append(id).append('.')
+                .append(field).append(": ").append(change.before()).append(" -> ").append(change.after())));
+        return text.substring(1);
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// JVM options for the spawned jar. Configured with system properties:
+//   todomanager.startup.cds=true            share classes through a cached AppCDS archive
+//   todomanager.startup.tieredStopAtLevel=1 stop JIT compilation at the given tier
+//   todomanager.startup.serialGc=true       use the serial collector
+//   todomanager.startup.heap=64m            fixed initial and maximum heap
+public class StartupProfile {
+
+    static final Path CDS_DIRECTORY = Paths.get("target", "todomanager-cds");
+
+    private static final Path CDS_ARCHIVE = CDS_DIRECTORY.resolve(
+            TodoManagerServer.JAR.getFileName() + "-jdk" + Runtime.version().feature() + ".jsa");
+    private static final AtomicBoolean archiving = new AtomicBoolean();
+
+    public static final StartupProfile DEFAULT = new StartupProfile(false, 0, false, null);
+
+    private final boolean cds;
+    private final int tieredStopAtLevel;
+    private final boolean serialGc;
+    private final String heap;
+
+    public StartupProfile(boolean cds, int tieredStopAtLevel, boolean serialGc, String heap) {
+        this.cds = cds;
+        this.tieredStopAtLevel = tieredStopAtLevel;
+        this.serialGc = serialGc;
+        this.heap = heap;
+    }
+
+    public static StartupProfile fromSystemProperties() {
+        return new StartupProfile(
+                Boolean.getBoolean("todomanager.startup.cds"),
+                Integer.getInteger("todomanager.startup.tieredStopAtLevel", 0),
+                Boolean.getBoolean("todomanager.startup.serialGc"),
+                System.getProperty("todomanager.startup.heap"));
+    }
+
+    // the first launch that finds no archive records one at exit; the others run unshared until it exists
+    public List<String> jvmArgs() {
+        List<String> args = new ArrayList<>();
+        if (cds) {
+            if (Files.exists(CDS_ARCHIVE)) {
+                args.add("-XX:SharedArchiveFile=" + CDS_ARCHIVE);
+            } else if (archiving.compareAndSet(false, true)) {
+                args.add("-XX:ArchiveClassesAtExit=" + pendingArchive());
+            }
+        }
+        if (tieredStopAtLevel > 0) {
+            args.add("-XX:TieredStopAtLevel=" + tieredStopAtLevel);
+        }
+        if (serialGc) {
+            args.add("-XX:+UseSerialGC");
+        }
+        if (heap != null) {
+            args.add("-Xms" + heap);
+            args.add("-Xmx" + heap);
+        }
+        return args;
+    }
+
+    // the archive is written while the JVM exits, so it only becomes visible once the process is gone
+    public void launched(Process process, List<String> jvmArgs) {
+        if (!jvmArgs.contains("-XX:ArchiveClassesAtExit=" + pendingArchive())) {
+            return;
+        }
+        process.onExit().thenRun(() -> {
+            try {
+                if (Files.exists(pendingArchive())) {
+                    Files.move(pendingArchive(), CDS_ARCHIVE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                // leave the cache empty; the next launch records a new archive
+            } finally {
+                archiving.set(false);
+            }
+        });
+    }
+
+    static Path pendingArchive() {
+        try {
+            Files.createDirectories(CDS_DIRECTORY);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create " + CDS_DIRECTORY + ": " + e.getMessage(), e);
+        }
+        return CDS_DIRECTORY.resolve(CDS_ARCHIVE.getFileName() + ".tmp");
+    }
+
+    public String describe() {
+        List<String> parts = new ArrayList<>();
+        if (cds) {
+            parts.add("AppCDS");
+        }
+        if (tieredStopAtLevel > 0) {
+            parts.add("TieredStopAtLevel=" + tieredStopAtLevel);
+        }
+        if (serialGc) {
+            parts.add("SerialGC");
+        }
+        if (heap != null) {
+            parts.add("heap " + heap);
+        }
+        return parts.isEmpty() ? "default flags" : String.join(" + ", parts);
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Time-to-first-200 of the jar for each startup option on its own and all together, and when hosted in-process.
+// Not part of the default run: mvn test -Dtest=StartupReport [-Dtodomanager.startup.report.runs=10]
+public class StartupReport {
+
+    private static final int RUNS = Integer.getInteger("todomanager.startup.report.runs", 5);
+
+    @Test
+    public void reportTimeToFirst200() throws Exception {
+        List<StartupProfile> profiles = List.of(
+                StartupProfile.DEFAULT,
+                new StartupProfile(true, 0, false, null),
+                new StartupProfile(false, 1, false, null),
+                new StartupProfile(false, 0, true, null),
+                new StartupProfile(false, 0, false, "64m"),
+                new StartupProfile(true, 1, true, "64m"));
+
+        recordCdsArchive();
+
+        System.out.printf("%-55s %10s %10s %10s %10s%n", "profile", "median ms", "min ms", "max ms", "vs base");
+        long baseline = 0;
+        for (StartupProfile profile : profiles) {
+            List<Long> times = new ArrayList<>();
+            for (int i = 0; i < RUNS; i++) {
+                times.add(timeToReady(new TodoManagerServer(TodoManagerServerPool.freePort(), profile)));
+            }
+            if (profile == StartupProfile.DEFAULT) {
+                baseline = median(times);
+            }
+            print(profile.describe(), times, baseline);
+        }
+
+        List<Long> inProcess = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            inProcess.add(timeToReady(new InProcessTodoManagerServer(TodoManagerServerPool.freePort())));
+        }
+        print("in-process class loader", inProcess, baseline);
+    }
+
+    private long timeToReady(TodoManagerServer server) {
+        server.start();
+        long millis = server.getTimeToReadyMillis();
+        server.stop();
+        return millis;
+    }
+
+    private long median(List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private void print(String name, List<Long> times, long baseline) {
+        long median = median(times);
+        System.out.printf("%-55s %10d %10d %10d %9.0f%%%n", name, median, Collections.min(times),
+                Collections.max(times), 100.0 * (median - baseline) / baseline);
+    }
+
+    // one launch with the archive option writes the archive when the JVM exits
+    private void recordCdsArchive() throws InterruptedException {
+        StartupProfile cds = new StartupProfile(true, 0, false, null);
+        TodoManagerServer server = new TodoManagerServer(TodoManagerServerPool.freePort(), cds);
+        server.start();
+        server.stop();
+        for (int i = 0; i < 100 && !archiveExists(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(archiveExists(), "AppCDS archive was not written to " + StartupProfile.CDS_DIRECTORY);
+    }
+
+    private boolean archiveExists() {
+        try (var files = Files.list(StartupProfile.CDS_DIRECTORY)) {
+            return files.anyMatch(path -> path.toString().endsWith(".jsa"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
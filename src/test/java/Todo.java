@@ -0,0 +1,10 @@
+import java.util.List;
+
+// A todo as the API returns it; relationship fields hold the ids of the related entities.
+public record Todo(String id, String title, boolean doneStatus, String description, List<String> categories, List<String> tasksof) {
+
+    public Todo {
+        categories = List.copyOf(categories);
+        tasksof = List.copyOf(tasksof);
+    }
+}
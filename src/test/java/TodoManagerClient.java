@@ -0,0 +1,380 @@
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Typed access to every Todo Manager route. Each call reads and closes its response, so the connection goes
+// back to the pool, and reports how long it took. Paths are resolved against the base url, so a full url
+// (as the older helpers pass around) works too.
+public class TodoManagerClient {
+
+    static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    static final MediaType XML = MediaType.parse("application/xml; charset=utf-8");
+
+    private final OkHttpClient http;
+    private final HttpUrl baseUrl;
+
+    public TodoManagerClient(OkHttpClient http, String baseUrl) {
+        this.http = http;
+        this.baseUrl = HttpUrl.get(baseUrl + "/");
+    }
+
+    // keep-alive connections are what make a run of short calls cheap; the defaults only keep 5 idle ones
+    public static OkHttpClient.Builder pooledClientBuilder() {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(Integer.getInteger("todomanager.http.idleConnections", 32), 5, TimeUnit.MINUTES))
+                .connectTimeout(2, TimeUnit.SECONDS)
+                .readTimeout(10, TimeUnit.SECONDS)
+                .writeTimeout(10, TimeUnit.SECONDS);
+    }
+
+    //----------------------------------------------------------- generic -----------------------------------------------------------//
+
+    public ApiResponse get(String path) {
+        return send(new Request.Builder().url(resolve(path)).get().build());
+    }
+
+    public ApiResponse head(String path) {
+        return send(new Request.Builder().url(resolve(path)).head().build());
+    }
+
+    public ApiResponse post(String path, JSONObject body) {
+        return send(new Request.Builder().url(resolve(path)).post(RequestBody.create(JSON, body.toString())).build());
+    }
+
+    public ApiResponse put(String path, JSONObject body) {
+        return send(new Request.Builder().url(resolve(path)).put(RequestBody.create(JSON, body.toString())).build());
+    }
+
+    public ApiResponse delete(String path) {
+        return send(new Request.Builder().url(resolve(path)).delete().build());
+    }
+
+    public ApiResponse send(Request request) {
+        long start = System.nanoTime();
+        try (Response response = http.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String content = body != null ? body.string() : "";
+            return new ApiResponse(request.method(), request.url().toString(), response.code(), response.message(),
+                    response.header("Content-Type"), content, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new RuntimeException(request.method() + " " + request.url() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    // decodes the body straight off the connection's BufferedSource, never holding it as a String
+    public <T> T fetch(String path, BodyDecoder<T> decoder) {
+        return fetch(path, JSON, decoder);
+    }
+
+    // asks for the given format and refuses a body in any other, so a decoder never sees the wrong one
+    public <T> T fetch(String path, MediaType accept, BodyDecoder<T> decoder) {
+        Request request = new Request.Builder().url(resolve(path)).header("Accept", accept.type() + "/" + accept.subtype()).get().build();
+        try (Response response = http.newCall(request).execute()) {
+            if (response.code() != 200 || response.body() == null) {
+                throw new IllegalStateException("GET " + request.url() + " answered " + response.code() + " " + response.message());
+            }
+            MediaType answered = response.body().contentType();
+            if (answered == null || !answered.subtype().equals(accept.subtype())) {
+                throw new IllegalStateException("GET " + request.url() + " asked for " + accept.subtype() + " but answered " + answered);
+            }
+            return decoder.decode(response.body().source().inputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("GET " + request.url() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    public interface BodyDecoder<T> {
+        T decode(InputStream in) throws IOException;
+    }
+
+    //----------------------------------------------------------- xml -----------------------------------------------------------//
+
+    // the body is written by XmlEntityCodec straight into the request stream; the answer comes back as XML too
+    public ApiResponse postXml(String path, String element, Map<?, ?> fields) {
+        return send(new Request.Builder().url(resolve(path)).header("Accept", "application/xml").post(xmlBody(element, fields)).build());
+    }
+
+    public ApiResponse putXml(String path, String element, Map<?, ?> fields) {
+        return send(new Request.Builder().url(resolve(path)).header("Accept", "application/xml").put(xmlBody(element, fields)).build());
+    }
+
+    private static RequestBody xmlBody(String element, Map<?, ?> fields) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return XML;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                XmlEntityCodec.write(sink.outputStream(), element, fields);
+            }
+        };
+    }
+
+    HttpUrl resolve(String path) {
+        HttpUrl url = baseUrl.resolve(path.startsWith("/") ? path.substring(1) : path);
+        if (url == null) {
+            throw new IllegalArgumentException("Not a valid path or url: " + path);
+        }
+        return url;
+    }
+
+    //----------------------------------------------------------- entities -----------------------------------------------------------//
+
+    public ApiResponse list(String type) {
+        return get(type);
+    }
+
+    public ApiResponse find(String type, String id) {
+        return get(type + "/" + id);
+    }
+
+    public ApiResponse create(String type, JSONObject fields) {
+        return post(type, fields);
+    }
+
+    // POST to an existing id only changes the fields given, PUT replaces the entity and drops its relationships
+    public ApiResponse amend(String type, String id, JSONObject fields) {
+        return post(type + "/" + id, fields);
+    }
+
+    public ApiResponse replace(String type, String id, JSONObject fields) {
+        return put(type + "/" + id, fields);
+    }
+
+    public ApiResponse remove(String type, String id) {
+        return delete(type + "/" + id);
+    }
+
+    public ApiResponse createXml(String type, Map<?, ?> fields) {
+        return postXml(type, XmlEntityCodec.element(type), fields);
+    }
+
+    public ApiResponse amendXml(String type, String id, Map<?, ?> fields) {
+        return postXml(type + "/" + id, XmlEntityCodec.element(type), fields);
+    }
+
+    public ApiResponse replaceXml(String type, String id, Map<?, ?> fields) {
+        return putXml(type + "/" + id, XmlEntityCodec.element(type), fields);
+    }
+
+    //----------------------------------------------------------- relationships -----------------------------------------------------------//
+
+    public ApiResponse related(String type, String id, String relationship) {
+        return get(type + "/" + id + "/" + relationship);
+    }
+
+    public ApiResponse link(String type, String id, String relationship, String relatedId) {
+        JSONObject body = new JSONObject();
+        body.put("id", relatedId);
+        return post(type + "/" + id + "/" + relationship, body);
+    }
+
+    // creates the related entity and the link in one call
+    public ApiResponse createRelated(String type, String id, String relationship, JSONObject fields) {
+        return post(type + "/" + id + "/" + relationship, fields);
+    }
+
+    public ApiResponse unlink(String type, String id, String relationship, String relatedId) {
+        return delete(type + "/" + id + "/" + relationship + "/" + relatedId);
+    }
+
+    //----------------------------------------------------------- decoded -----------------------------------------------------------//
+
+    public List<Todo> fetchTodos() {
+        return fetch("todos", JsonEntityDecoder::todos);
+    }
+
+    public List<Project> fetchProjects() {
+        return fetch("projects", JsonEntityDecoder::projects);
+    }
+
+    public List<Category> fetchCategories() {
+        return fetch("categories", JsonEntityDecoder::categories);
+    }
+
+    public List<Todo> fetchTodosXml() {
+        return fetch("todos", XML, XmlEntityCodec::todos);
+    }
+
+    public List<Project> fetchProjectsXml() {
+        return fetch("projects", XML, XmlEntityCodec::projects);
+    }
+
+    public List<Category> fetchCategoriesXml() {
+        return fetch("categories", XML, XmlEntityCodec::categories);
+    }
+
+    //----------------------------------------------------------- todos -----------------------------------------------------------//
+
+    public ApiResponse todos() {
+        return list("todos");
+    }
+
+    public ApiResponse todo(String id) {
+        return find("todos", id);
+    }
+
+    public ApiResponse createTodo(JSONObject fields) {
+        return create("todos", fields);
+    }
+
+    public ApiResponse amendTodo(String id, JSONObject fields) {
+        return amend("todos", id, fields);
+    }
+
+    public ApiResponse replaceTodo(String id, JSONObject fields) {
+        return replace("todos", id, fields);
+    }
+
+    public ApiResponse deleteTodo(String id) {
+        return remove("todos", id);
+    }
+
+    public ApiResponse todoTasksOf(String todoId) {
+        return related("todos", todoId, "tasksof");
+    }
+
+    public ApiResponse linkTodoTaskOf(String todoId, String projectId) {
+        return link("todos", todoId, "tasksof", projectId);
+    }
+
+    public ApiResponse unlinkTodoTaskOf(String todoId, String projectId) {
+        return unlink("todos", todoId, "tasksof", projectId);
+    }
+
+    public ApiResponse todoCategories(String todoId) {
+        return related("todos", todoId, "categories");
+    }
+
+    public ApiResponse linkTodoCategory(String todoId, String categoryId) {
+        return link("todos", todoId, "categories", categoryId);
+    }
+
+    public ApiResponse unlinkTodoCategory(String todoId, String categoryId) {
+        return unlink("todos", todoId, "categories", categoryId);
+    }
+
+    //----------------------------------------------------------- projects -----------------------------------------------------------//
+
+    public ApiResponse projects() {
+        return list("projects");
+    }
+
+    public ApiResponse project(String id) {
+        return find("projects", id);
+    }
+
+    public ApiResponse createProject(JSONObject fields) {
+        return create("projects", fields);
+    }
+
+    public ApiResponse amendProject(String id, JSONObject fields) {
+        return amend("projects", id, fields);
+    }
+
+    public ApiResponse replaceProject(String id, JSONObject fields) {
+        return replace("projects", id, fields);
+    }
+
+    public ApiResponse deleteProject(String id) {
+        return remove("projects", id);
+    }
+
+    public ApiResponse projectTasks(String projectId) {
+        return related("projects", projectId, "tasks");
+    }
+
+    public ApiResponse linkProjectTask(String projectId, String todoId) {
+        return link("projects", projectId, "tasks", todoId);
+    }
+
+    public ApiResponse unlinkProjectTask(String projectId, String todoId) {
+        return unlink("projects", projectId, "tasks", todoId);
+    }
+
+    public ApiResponse projectCategories(String projectId) {
+        return related("projects", projectId, "categories");
+    }
+
+    public ApiResponse linkProjectCategory(String projectId, String categoryId) {
+        return link("projects", projectId, "categories", categoryId);
+    }
+
+    public ApiResponse unlinkProjectCategory(String projectId, String categoryId) {
+        return unlink("projects", projectId, "categories", categoryId);
+    }
+
+    //----------------------------------------------------------- categories -----------------------------------------------------------//
+
+    public ApiResponse categories() {
+        return list("categories");
+    }
+
+    public ApiResponse category(String id) {
+        return find("categories", id);
+    }
+
+    public ApiResponse createCategory(JSONObject fields) {
+        return create("categories", fields);
+    }
+
+    public ApiResponse amendCategory(String id, JSONObject fields) {
+        return amend("categories", id, fields);
+    }
+
+    public ApiResponse replaceCategory(String id, JSONObject fields) {
+        return replace("categories", id, fields);
+    }
+
+    public ApiResponse deleteCategory(String id) {
+        return remove("categories", id);
+    }
+
+    public ApiResponse categoryTodos(String categoryId) {
+        return related("categories", categoryId, "todos");
+    }
+
+    public ApiResponse linkCategoryTodo(String categoryId, String todoId) {
+        return link("categories", categoryId, "todos", todoId);
+    }
+
+    public ApiResponse unlinkCategoryTodo(String categoryId, String todoId) {
+        return unlink("categories", categoryId, "todos", todoId);
+    }
+
+    public ApiResponse categoryProjects(String categoryId) {
+        return related("categories", categoryId, "projects");
+    }
+
+    public ApiResponse linkCategoryProject(String categoryId, String projectId) {
+        return link("categories", categoryId, "projects", projectId);
+    }
+
+    public ApiResponse unlinkCategoryProject(String categoryId, String projectId) {
+        return unlink("categories", categoryId, "projects", projectId);
+    }
+
+    public OkHttpClient http() {
+        return http;
+    }
+
+    public String baseUrl() {
+        String url = baseUrl.toString();
+        return url.substring(0, url.length() - 1);
+    }
+}
@@ -0,0 +1,215 @@
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TodoManagerServer {
+
+    static final Path JAR = Paths.get("src", "test", "java", "runTodoManagerRestAPI-1.5.5.jar");
+    static final int DEFAULT_PORT = 4567;
+
+    // fork: a separate JVM per server (default); in-process: hosted in this JVM by InProcessTodoManagerServer
+    static final String HOSTING = System.getProperty("todomanager.hosting", "fork");
+
+    private static final long READY_TIMEOUT_MS = Long.getLong("todomanager.ready.timeout", 20000);
+    private static final long STOP_TIMEOUT_MS = Long.getLong("todomanager.stop.timeout", 10000);
+    private static final long INITIAL_BACKOFF_MS = 5;
+    private static final long MAX_BACKOFF_MS = 100;
+
+    // short timeouts so a probe against a server that is still booting fails fast and gets retried
+    private static final OkHttpClient probe = new OkHttpClient.Builder()
+            .connectTimeout(250, TimeUnit.MILLISECONDS)
+            .readTimeout(2, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(false)
+            .build();
+
+    private static final List<Long> startupTimes = Collections.synchronizedList(new ArrayList<>());
+
+    private final int port;
+    private final StartupProfile profile;
+    protected Process process;
+    private ProcessLogPump logs;
+    private FlightRecording recording;
+    private long timeToReadyMillis = -1;
+
+    public TodoManagerServer() {
+        this(DEFAULT_PORT);
+    }
+
+    public TodoManagerServer(int port) {
+        this(port, StartupProfile.fromSystemProperties());
+    }
+
+    public TodoManagerServer(int port, StartupProfile profile) {
+        this.port = port;
+        this.profile = profile;
+    }
+
+    public static TodoManagerServer create(int port) {
+        return HOSTING.equals("in-process") ? new InProcessTodoManagerServer(port) : new TodoManagerServer(port);
+    }
+
+    public void start() {
+        long startNanos = System.nanoTime();
+        try {
+            launch();
+        } catch (IOException e) {
+            throw new RuntimeException("Error starting the API: " + e.getMessage(), e);
+        }
+        try {
+            awaitReady(startNanos);
+        } catch (RuntimeException e) {
+            // don't leave a half-started JVM holding the port
+            if (process != null) {
+                process.destroyForcibly();
+                ProcessReaper.reap(process);
+            }
+            throw e;
+        }
+        TrafficRecorder.serverStarted(port);
+    }
+
+    public void stop() {
+        terminate();
+        if (process != null) {
+            ProcessReaper.reap(process);
+        }
+        awaitPortReleased();
+        if (recording != null) {
+            recording.summarize();
+        }
+    }
+
+    protected void launch() throws IOException {
+        List<String> jvmArgs = profile.jvmArgs();
+        recording = FlightRecording.forServer(port);
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        command.addAll(jvmArgs);
+        if (recording != null) {
+            command.addAll(recording.jvmArgs());
+        }
+        command.addAll(List.of("-jar", JAR.toString(), "-port=" + port));
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        process = processBuilder.start();
+        ProcessReaper.register(process);
+        logs = new ProcessLogPump(process, "todomanager-" + port);
+        profile.launched(process, jvmArgs);
+    }
+
+    protected void terminate() {
+        try {
+            Request request = new Request.Builder()
+                    .url(baseUrl() + "/shutdown")
+                    .get()
+                    .build();
+            probe.newCall(request).execute().close();
+        } catch (IOException e) {
+            // Server doesn't respond anymore after shutdown; no need for further action.
+        }
+    }
+
+    protected void checkAlive() {
+        if (process != null && !process.isAlive()) {
+            throw new RuntimeException("API exited with code " + process.exitValue() + " before it was ready.");
+        }
+    }
+
+    // polls / with exponential backoff until it answers, the process dies or the deadline passes
+    private void awaitReady(long startNanos) {
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT_MS);
+        long backoff = INITIAL_BACKOFF_MS;
+        while (true) {
+            checkAlive();
+            Request request = new Request.Builder()
+                    .url(baseUrl() + "/")
+                    .build();
+            try (Response response = probe.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new RuntimeException("API is not running or is not responding as expected.");
+                }
+                timeToReadyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                startupTimes.add(timeToReadyMillis);
+                return;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new RuntimeException("API did not become ready on port " + port + " within " + READY_TIMEOUT_MS + " ms.");
+            }
+            sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private void awaitPortReleased() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MS);
+        long backoff = INITIAL_BACKOFF_MS;
+        while (isListening(port)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new RuntimeException("API on port " + port + " did not shut down within " + STOP_TIMEOUT_MS + " ms.");
+            }
+            sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 250);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static String javaExecutable() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the API.", e);
+        }
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // the JVM the server runs in: the forked one, or this one when hosted in-process
+    public long pid() {
+        return process != null ? process.pid() : ProcessHandle.current().pid();
+    }
+
+    // the last lines the server wrote, empty when its output is not captured
+    public String logTail() {
+        return logs != null ? logs.tail() : "";
+    }
+
+    public long getTimeToReadyMillis() {
+        return timeToReadyMillis;
+    }
+
+    public static List<Long> getStartupTimes() {
+        synchronized (startupTimes) {
+            return new ArrayList<>(startupTimes);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Look-ahead lifecycle: while a test runs against one fresh server, the next one is already booting on
+// another port, and finished servers are shut down in the background.
+public class TodoManagerServerPipeline implements ExtensionContext.Store.CloseableResource {
+
+    private static final long CLOSE_TIMEOUT_MS = 30000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "todomanager-pipeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<TodoManagerServer> next;
+
+    public synchronized TodoManagerServer take() {
+        if (next == null) {
+            next = launchAsync();
+        }
+        CompletableFuture<TodoManagerServer> current = next;
+        next = launchAsync();
+        try {
+            return current.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void retire(TodoManagerServer server) {
+        executor.execute(server::stop);
+    }
+
+    private CompletableFuture<TodoManagerServer> launchAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            TodoManagerServer server = TodoManagerServer.create(TodoManagerServerPool.freePort());
+            server.start();
+            return server;
+        }, executor);
+    }
+
+    public synchronized void close() {
+        if (next != null) {
+            next.thenAccept(TodoManagerServer::stop);
+            next = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A fixed number of pre-warmed servers on free ports. A test leases one for its whole run; on release the
+// server is reset (or replaced by a fresh one) in the background so the next lease finds it ready. A replacement
+// that will not start is retried on another port; if it still fails, the slot is owed and the next lease that
+// finds no idle server starts one itself, so the failure reaches a test instead of starving the pool.
+//   todomanager.pool.startAttempts=3
+public class TodoManagerServerPool implements ExtensionContext.Store.CloseableResource {
+
+    static final int DEFAULT_SIZE = Integer.getInteger("todomanager.pool.size", Runtime.getRuntime().availableProcessors());
+    private static final long LEASE_TIMEOUT_MS = Long.getLong("todomanager.pool.lease.timeout", 60000);
+    private static final long LEASE_POLL_MS = 100;
+    private static final int START_ATTEMPTS = Integer.getInteger("todomanager.pool.startAttempts", 3);
+
+    private final OkHttpClient client;
+    private final BlockingQueue<TodoManagerServer> idle = new LinkedBlockingQueue<>();
+    private final Map<TodoManagerServer, ServerStateReset> servers = new ConcurrentHashMap<>();
+    private final ExecutorService maintenance;
+    private volatile boolean closed;
+    // slots whose server could not be started in the background
+    private final AtomicInteger missing = new AtomicInteger();
+
+    public TodoManagerServerPool(OkHttpClient client, int size) {
+        this.client = client;
+        this.maintenance = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "todomanager-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < size; i++) {
+            maintenance.execute(this::addFreshServer);
+        }
+    }
+
+    public TodoManagerServer lease() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LEASE_TIMEOUT_MS);
+        try {
+            while (true) {
+                TodoManagerServer server = idle.poll(LEASE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (server != null) {
+                    return server;
+                }
+                if (missing.getAndUpdate(slots -> slots > 0 ? slots - 1 : 0) > 0) {
+                    try {
+                        return startTracked();
+                    } catch (RuntimeException e) {
+                        missing.incrementAndGet();
+                        throw e;
+                    }
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("No Todo Manager server became available within " + LEASE_TIMEOUT_MS + " ms.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while leasing a Todo Manager server.", e);
+        }
+    }
+
+    public void release(TodoManagerServer server) {
+        maintenance.execute(() -> recycle(server));
+    }
+
+    private void recycle(TodoManagerServer server) {
+        ServerStateReset reset = servers.get(server);
+        if (!closed && !reset.isMutated()) {
+            idle.add(server);
+            return;
+        }
+        if (!closed && !reset.requiresRestart()) {
+            try {
+                reset.restore();
+                if (!CommonTests.VERIFY_RESET || reset.matchesSeed()) {
+                    idle.add(server);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // a refused request or an I/O error alike: fall through and replace the server
+            }
+        }
+        try {
+            retire(server);
+        } finally {
+            if (!closed) {
+                addFreshServer();
+            }
+        }
+    }
+
+    private void addFreshServer() {
+        TodoManagerServer server;
+        try {
+            server = startTracked();
+        } catch (RuntimeException e) {
+            missing.incrementAndGet();
+            return;
+        }
+        idle.add(server);
+    }
+
+    // a fresh port for each attempt, in case the last one was taken between probing and binding
+    private TodoManagerServer startTracked() {
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < Math.max(1, START_ATTEMPTS); attempt++) {
+            TodoManagerServer server = TodoManagerServer.create(freePort());
+            try {
+                server.start();
+            } catch (RuntimeException e) {
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                failure = e;
+                continue;
+            }
+            servers.put(server, ServerStateReset.track(client, server));
+            return server;
+        }
+        throw failure;
+    }
+
+    private void retire(TodoManagerServer server) {
+        servers.remove(server);
+        ServerStateReset.untrack(server);
+        server.stop();
+    }
+
+    public void close() {
+        closed = true;
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(LEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<TodoManagerServer> remaining = new ArrayList<>(servers.keySet());
+        for (TodoManagerServer server : remaining) {
+            retire(server);
+        }
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not find a free port: " + e.getMessage(), e);
+        }
+    }
+}
@@ -9,6 +9,10 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.json.XML;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @TestMethodOrder(MethodOrderer.Random.class)
 @ExtendWith(CommonTests.class)
 public class TodosAPITests {
@@ -18,11 +22,11 @@ public class TodosAPITests {
     @Test
     public void testTodosGet() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
@@ -32,11 +36,11 @@ public class TodosAPITests {
     @Test
     public void testTodosHead() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -44,9 +48,6 @@ public class TodosAPITests {
     //Create todo without a ID using the field values in the body of the message
     @Test
     public void testTodosPost() throws Exception {
-        // check todo object before post request
-        JSONArray initialTodos = fetchTodoList("http://localhost:4567/todos");
-
         // Create a new TODO item
         String title = "Joey";
         boolean doneStatus = false;
@@ -55,13 +56,10 @@ public class TodosAPITests {
         JSONObject newTodo = createNewTodoObject(title, doneStatus, description);
 
         //Send a POST request to add the new TODO item
-        sendPostRequestToCreateTodoItem(newTodo, "http://localhost:4567/todos", 201);
+        sendPostRequestToCreateTodoItem(newTodo, CommonTests.url() + "/todos", 201);
 
-        //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
-
-        //Verify the previous TODO items are still there, and the new one is created
-        verifyTodoItemsAreUpdated(initialTodos, updatedTodos);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     //method not allowed and not in api documentation
@@ -70,11 +68,11 @@ public class TodosAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .put(dummyBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -84,11 +82,11 @@ public class TodosAPITests {
     @Test
     public void testTodosDelete() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -100,11 +98,11 @@ public class TodosAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .patch(dummyBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -116,15 +114,15 @@ public class TodosAPITests {
     @Test
     public void testTodosGetWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1")
+                .url(CommonTests.url() + "/todos/1")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         assert response.body() != null;
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         JSONParser parser = new JSONParser();
         JSONObject responseJson = (JSONObject) parser.parse(responseBody);
@@ -143,15 +141,24 @@ public class TodosAPITests {
         }
     }
 
+    //a specific todo stays quick to fetch: p99 within 50 ms over 200 calls, after 50 to warm up
+    @Test
+    @PerfBudget(maxMillis = 50, maxAllocatedBytes = 64 * 1024)
+    public void testTodosGetWithValidIDWithinBudget() throws Exception {
+        ApiResponse response = CommonTests.api().todo("1");
+        assertEquals(200, response.code());
+        assertTrue(response.body().contains("\"id\":\"1\""));
+    }
+
     //get todo with invalid id
     @Test
     public void testTodosGetWithInvalidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/3")
+                .url(CommonTests.url() + "/todos/3")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(404, response.code());
@@ -161,11 +168,11 @@ public class TodosAPITests {
     @Test
     public void testTodosHeadID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1")
+                .url(CommonTests.url() + "/todos/1")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
 
         assertEquals(200, response.code());
@@ -183,18 +190,17 @@ public class TodosAPITests {
         JSONObject newTodo = createNewTodoObject(title, doneStatus, description);
 
         //Send a POST request to add the new TODO item
-        sendPostRequestToCreateTodoItem(newTodo, "http://localhost:4567/todos/1", 200);
+        sendPostRequestToCreateTodoItem(newTodo, CommonTests.url() + "/todos/1", 200);
 
         //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
+        List<Todo> updatedTodos = fetchTodoList();
 
         //Verify if new list is correct
-        for(Object todoObject: updatedTodos){
-            JSONObject todo = (JSONObject) todoObject;
-            String id = (String) todo.get("id");
-            String titleCheck = (String) todo.get("title");
-            String descriptionCheck = (String) todo.get("description");
-            boolean doneStatusCheck = Boolean.parseBoolean(String.valueOf(todo.get("doneStatus")));
+        for(Todo todo: updatedTodos){
+            String id = todo.id();
+            String titleCheck = todo.title();
+            String descriptionCheck = todo.description();
+            boolean doneStatusCheck = todo.doneStatus();
 
             if(id.equals("1")){
                 assertEquals(title, titleCheck);
@@ -215,11 +221,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/3")
+                .url(CommonTests.url() + "/todos/3")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -234,18 +240,17 @@ public class TodosAPITests {
         JSONObject newTodo = createNewTodoObject(title, doneStatus, description);
 
         //Send a POST request to add the new TODO item
-        sendPutRequestToCreateTodoItem(newTodo, "http://localhost:4567/todos/1", 200);
+        sendPutRequestToCreateTodoItem(newTodo, CommonTests.url() + "/todos/1", 200);
 
         //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
+        List<Todo> updatedTodos = fetchTodoList();
 
         //Verify if new list is correct
-        for(Object todoObject: updatedTodos){
-            JSONObject todo = (JSONObject) todoObject;
-            String id = (String) todo.get("id");
-            String titleCheck = (String) todo.get("title");
-            String descriptionCheck = (String) todo.get("description");
-            boolean doneStatusCheck = Boolean.parseBoolean(String.valueOf(todo.get("doneStatus")));
+        for(Todo todo: updatedTodos){
+            String id = todo.id();
+            String titleCheck = todo.title();
+            String descriptionCheck = todo.description();
+            boolean doneStatusCheck = todo.doneStatus();
 
             if(id.equals("1")){
                 assertEquals(title, titleCheck);
@@ -266,11 +271,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/3")
+                .url(CommonTests.url() + "/todos/3")
                 .put(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -278,11 +283,11 @@ public class TodosAPITests {
     @Test
     public void testTodosDeleteWithInvalidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/3")
+                .url(CommonTests.url() + "/todos/3")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -290,24 +295,23 @@ public class TodosAPITests {
     @Test
     public void testTodosDeleteWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1")
+                .url(CommonTests.url() + "/todos/1")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
 
         //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
+        List<Todo> updatedTodos = fetchTodoList();
 
         //Verify if new list is correct
-        for(Object todoObject: updatedTodos){
-            JSONObject todo = (JSONObject) todoObject;
-            String id = (String) todo.get("id");
-            String titleCheck = (String) todo.get("title");
-            String descriptionCheck = (String) todo.get("description");
-            boolean doneStatusCheck = Boolean.parseBoolean(String.valueOf(todo.get("doneStatus")));
+        for(Todo todo: updatedTodos){
+            String id = todo.id();
+            String titleCheck = todo.title();
+            String descriptionCheck = todo.description();
+            boolean doneStatusCheck = todo.doneStatus();
 
             if(id.equals("1")){
                 Assertions.fail();
@@ -327,11 +331,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1")
+                .url(CommonTests.url() + "/todos/1")
                 .patch(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
     }
@@ -340,11 +344,11 @@ public class TodosAPITests {
     @Test
     public void testTodosTasksOfHeadWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/tasksof")
+                .url(CommonTests.url() + "/todos/1/tasksof")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
@@ -352,39 +356,33 @@ public class TodosAPITests {
     @Test
     public void testTodosTasksOfHeadWithInvalidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/5/tasksof")
+                .url(CommonTests.url() + "/todos/5/tasksof")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
     }
 
     @Test
     public void testTodosTasksOfPostWithValidID() throws Exception {
-        // check todo object before post request
-        JSONArray initialTodos = fetchTodoList("http://localhost:4567/todos");
-
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("id", "1");
 
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/2/tasksof")
+                .url(CommonTests.url() + "/todos/2/tasksof")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
-
-        //Verify the previous TODO items are still there, and the new one is created
-        verifyTodoItemsAreUpdated(initialTodos, updatedTodos);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -395,11 +393,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/6/tasksof")
+                .url(CommonTests.url() + "/todos/6/tasksof")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -412,11 +410,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/tasksof")
+                .url(CommonTests.url() + "/todos/1/tasksof")
                 .put(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
     }
@@ -424,11 +422,11 @@ public class TodosAPITests {
     @Test
     public void testTodosTasksOfDelete() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/tasksof")
+                .url(CommonTests.url() + "/todos/1/tasksof")
                 .delete()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
     }
@@ -441,11 +439,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/tasksof")
+                .url(CommonTests.url() + "/todos/1/tasksof")
                 .patch(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
     }
@@ -455,14 +453,14 @@ public class TodosAPITests {
     @Test
     public void testTodosCategoriesGetWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assert response.body() != null;
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
@@ -485,14 +483,14 @@ public class TodosAPITests {
     @Test
     public void testTodosCategoriesGetWith2ndValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/2/categories")
+                .url(CommonTests.url() + "/todos/2/categories")
                 .get()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assert response.body() != null;
-        String responseBody = response.body().string();
+        String responseBody = response.body();
 
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
@@ -507,11 +505,11 @@ public class TodosAPITests {
     @Test
     public void testTodosCategoriesHeadWithValidID() throws Exception {
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .head()
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(200, response.code());
         assertEquals("OK", response.message());
@@ -519,29 +517,23 @@ public class TodosAPITests {
 
     @Test
     public void testTodosCategoriesPostWithValidID() throws Exception {
-        // check todo object before post request
-        JSONArray initialTodos = fetchTodoList("http://localhost:4567/todos");
-
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("id", "1");
 
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/2/categories")
+                .url(CommonTests.url() + "/todos/2/categories")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(201, response.code());
         assertEquals("Created", response.message());
 
-        //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
-
-        //Verify the previous TODO items are still there, and the new one is created
-        verifyTodoItemsAreUpdated(initialTodos, updatedTodos);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
@@ -552,11 +544,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/4/categories")
+                .url(CommonTests.url() + "/todos/4/categories")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -570,11 +562,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -588,11 +580,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .put(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -606,11 +598,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .delete(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -624,11 +616,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos/1/categories")
+                .url(CommonTests.url() + "/todos/1/categories")
                 .patch(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -645,11 +637,11 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonObject.toString());
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(400, response.code());
         assertEquals("Bad Request", response.message());
@@ -668,17 +660,31 @@ public class TodosAPITests {
         RequestBody requestBody = RequestBody.create(MediaType.parse("application/xml; charset=utf-8"), xmlString);
 
         Request request = new Request.Builder()
-                .url("http://localhost:4567/todos")
+                .url(CommonTests.url() + "/todos")
                 .post(requestBody)
                 .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
 
         assertEquals(400, response.code());
         assertEquals("Bad Request", response.message());
 
     }
 
+    @Test
+    public void testTodosPostXmlWrittenByClient() throws Exception {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("title", "Joey & <Chandler>");
+        jsonObject.put("description", "");
+
+        ApiResponse response = CommonTests.api().createXml("todos", jsonObject);
+
+        assertEquals(201, response.code());
+        Todo todo = XmlEntityCodec.todo(new ByteArrayInputStream(response.body().getBytes(StandardCharsets.UTF_8)));
+        assertEquals("Joey & <Chandler>", todo.title());
+        assertEquals("", todo.description());
+    }
+
     //interoperability
 
     //-----------------------------------------------------------/todos/:id/categories/:id
@@ -687,11 +693,11 @@ public class TodosAPITests {
     @Test
     public void testCategoryTodoGet() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -703,11 +709,11 @@ public class TodosAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .post(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -718,11 +724,11 @@ public class TodosAPITests {
     public void testCategoryTodoPut() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .put(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -733,11 +739,11 @@ public class TodosAPITests {
     public void testCategoryTodoPatch() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .patch(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -747,15 +753,15 @@ public class TodosAPITests {
     public void testCategoryTodoRelDeleteValid() throws Exception {
         // verify todo has category with id 1
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories")
+            .url(CommonTests.url() + "/todos/1/categories")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assert response.body() != null;
 
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONParser parser = new JSONParser();
         JSONObject responseJson = (JSONObject) parser.parse(responseBody);
         JSONArray categories = (JSONArray) responseJson.get("categories");
@@ -765,25 +771,25 @@ public class TodosAPITests {
 
         // delete category to todo relationship
         request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(200, response.code());
 
         // verify todo no longer has category with id 1
         request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories")
+            .url(CommonTests.url() + "/todos/1/categories")
             .get()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         assert response.body() != null;
-        responseBody = response.body().string();
+        responseBody = response.body();
 
         parser = new JSONParser();
         responseJson = (JSONObject) parser.parse(responseBody);
@@ -795,15 +801,15 @@ public class TodosAPITests {
     public void testCategoryTodoRelDeleteDoubleInvalid() throws Exception {
         // verify todo has category with id 1
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories")
+            .url(CommonTests.url() + "/todos/1/categories")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assert response.body() != null;
 
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONParser parser = new JSONParser();
         JSONObject responseJson = (JSONObject) parser.parse(responseBody);
         JSONArray categories = (JSONArray) responseJson.get("categories");
@@ -813,20 +819,20 @@ public class TodosAPITests {
 
         // delete category to todo relationship
         request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(200, response.code());
 
          request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .delete()
             .build();
 
-        response = CommonTests.getClient().newCall(request).execute();
+        response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
     }
@@ -834,10 +840,10 @@ public class TodosAPITests {
     @Test
     public void testCategoryTodoRelDeleteInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/2023")
+            .url(CommonTests.url() + "/todos/1/categories/2023")
             .delete()
             .build();
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
 
@@ -847,11 +853,11 @@ public class TodosAPITests {
     @Test
     public void testCategoryTodoHead() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/categories/1")
+            .url(CommonTests.url() + "/todos/1/categories/1")
             .head()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -864,11 +870,11 @@ public class TodosAPITests {
     @Test
     public void testTodoTaskOfIDGet() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -880,11 +886,11 @@ public class TodosAPITests {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
 
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .post(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -895,11 +901,11 @@ public class TodosAPITests {
     public void testTodoTaskOfIDPut() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .put(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -910,11 +916,11 @@ public class TodosAPITests {
     public void testTodoTaskOfIDPatch() throws Exception {
         RequestBody dummyBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "");
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .patch(dummyBody)
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(405, response.code());
         assertEquals("Method Not Allowed", response.message());
@@ -922,61 +928,49 @@ public class TodosAPITests {
 
     @Test
     public void testTodoTaskOfIDDeleteDoubleInvalid() throws Exception {
-        //check todo object before post request
-        JSONArray initialTodos = fetchTodoList("http://localhost:4567/todos");
-
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .delete()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
         request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .delete()
             .build();
 
-       response = CommonTests.getClient().newCall(request).execute();
+       response = CommonTests.api().send(request);
        assertEquals(404, response.code());
 
-        //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
-
-        // Step 5: Verify the previous TODO items are still there, and the new one is created
-        verifyTodoItemsAreUpdated(initialTodos, updatedTodos);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
 
     @Test
     public void testTodoTaskOfIDDeleteValid() throws Exception {
-        //check todo object before post request
-        JSONArray initialTodos = fetchTodoList("http://localhost:4567/todos");
-
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .delete()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
 
-        //Fetch TODO items again
-        JSONArray updatedTodos = fetchTodoList("http://localhost:4567/todos");
-
-        // Step 5: Verify the previous TODO items are still there, and the new one is created
-        verifyTodoItemsAreUpdated(initialTodos, updatedTodos);
+        //Verify the touched items against the shadow model
+        CommonTests.verifyShadowModel();
     }
     
     //method not allowed and not in api documentation
     @Test
     public void testTodoTaskOfIDDeleteInvalid() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/2023")
+            .url(CommonTests.url() + "/todos/1/tasksof/2023")
             .delete()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
     }
@@ -985,11 +979,11 @@ public class TodosAPITests {
     @Test
     public void testTodoTaskOfIDHead() throws Exception {
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof/1")
+            .url(CommonTests.url() + "/todos/1/tasksof/1")
             .head()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assert response.body() != null;
         assertEquals(404, response.code());
         assertEquals("Not Found", response.message());
@@ -1000,15 +994,15 @@ public class TodosAPITests {
     public void testProjectTodoRelDelete() throws Exception {
         // verify todo has category with id 1
         Request request = new Request.Builder()
-            .url("http://localhost:4567/todos/1/tasksof")
+            .url(CommonTests.url() + "/todos/1/tasksof")
             .get()
             .build();
 
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().send(request);
         assertEquals(200, response.code());
         assert response.body() != null;
 
-        String responseBody = response.body().string();
+        String responseBody = response.body();
         JSONParser parser = new JSONParser();
         JSONObject responseJson = (JSONObject) parser.parse(responseBody);
         JSONArray projects = (JSONArray) responseJson.get("projects");
@@ -1017,33 +1011,15 @@ public class TodosAPITests {
         String id = (String)(firstProject).get("id");
         assertEquals("1", id);
 
-        JSONArray firstProjectTasks = (JSONArray) firstProject.get("tasks");
-
-        boolean found = false;
-        for (Object firstProjectTask : firstProjectTasks) {
-            JSONObject task = (JSONObject) firstProjectTask;
-            if (Integer.parseInt((String) (task).get("id")) == 1) {
-                found = true;
-                break;
-            }
-        }
-        assertTrue(found);
+        // verify the project lists the todo as a task in turn, and every other tasksof edge has its tasks edge too
+        RelationshipGraph graph = RelationshipGraph.load(CommonTests.api());
+        assertTrue(graph.hasEdge("projects", 1, "tasks", 1));
+        assertEquals(List.of(), graph.check());
     }
 
-    public static JSONArray fetchTodoList(String getRequest) throws Exception {
-        Request request = new Request.Builder()
-                .url(getRequest)
-                .get()
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
-
-        return (JSONArray) responseJson.get("todos");
+    // decoded straight off the response by JsonEntityDecoder
+    public static List<Todo> fetchTodoList() {
+        return CommonTests.api().fetchTodos();
     }
 
     public static JSONObject createNewTodoObject(String title, boolean doneStatus, String description) {
@@ -1054,45 +1030,11 @@ public class TodosAPITests {
         return jsonObject;
     }
 
-    public static void verifyTodoItemsAreUpdated(JSONArray initialTodos, JSONArray updatedTodos) {
-        // Verify that the previous TODO items are still there
-        for (Object initialTodoObject : initialTodos) {
-            JSONObject initialTodo = (JSONObject) initialTodoObject;
-            String initialId = (String) initialTodo.get("id");
-            String initialStatus = (String) initialTodo.get("doneStatus");
-            String initialDescription = (String) initialTodo.get("description");
-
-
-            boolean found = false;
-            for (Object updatedTodoObject : updatedTodos) {
-                JSONObject updatedTodo = (JSONObject) updatedTodoObject;
-                String updatedId = (String) updatedTodo.get("id");
-                String updatedStatus = (String) updatedTodo.get("doneStatus");
-                String updatedDescription = (String) updatedTodo.get("description");
-                if (initialId.equals(updatedId) && initialStatus.equals(updatedStatus) && initialDescription.equals(updatedDescription)) {
-                    found = true;
-                    break;
-                }
-            }
-            assertTrue(found, "Previous TODO item with ID " + initialId + " is different or not found");
-        }
-    }
-
     public static void sendPostRequestToCreateTodoItem(JSONObject newTodo, String postRequest, int expectedCode) throws Exception {
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), newTodo.toString());
-        Request request = new Request.Builder()
-                .url(postRequest)
-                .post(requestBody)
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().post(postRequest, newTodo);
         assertEquals(expectedCode, response.code());
 
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
+        JSONObject responseJson = response.json();
 
         String responseTitle = (String) responseJson.get("title");
         boolean responseStatus = Boolean.parseBoolean(String.valueOf(responseJson.get("doneStatus")));
@@ -1104,20 +1046,10 @@ public class TodosAPITests {
     }
 
     public static void sendPutRequestToCreateTodoItem(JSONObject newTodo, String postRequest, int expectedCode) throws Exception {
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), newTodo.toString());
-        Request request = new Request.Builder()
-                .url(postRequest)
-                .put(requestBody)
-                .build();
-
-        Response response = CommonTests.getClient().newCall(request).execute();
+        ApiResponse response = CommonTests.api().put(postRequest, newTodo);
         assertEquals(expectedCode, response.code());
 
-        assert response.body() != null;
-        String responseBody = response.body().string();
-
-        JSONParser parser = new JSONParser();
-        JSONObject responseJson = (JSONObject) parser.parse(responseBody);
+        JSONObject responseJson = response.json();
 
         String responseTitle = (String) responseJson.get("title");
         boolean responseStatus = Boolean.parseBoolean(String.valueOf(responseJson.get("doneStatus")));
@@ -0,0 +1,203 @@
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Appends every request the shared client sends to a log, when -Dtodomanager.record=target/traffic.log is set,
+// so a test run can be replayed as load later (java -jar loadtest/target/loadtest.jar replay). One line per
+// request, tab separated:
+//   stream  gap_us  method  path  status  created_id  content_type  body
+// The stream is the server's port; the gap is the time since the stream's previous request; the body is base64
+// ("-" when there is none); created_id is the id a successful create was given, which lets a replay map the
+// recorded ids onto the ones a fresh server hands out. Only test traffic is recorded: the harness's own resets,
+// snapshots and shadow-model checks run unrecorded(), and their time is taken out of the next gap, as is the
+// time a server restart on the same port took (serverStarted), so a replay never waits through either.
+public final class TrafficRecorder {
+
+    static final String LOG = System.getProperty("todomanager.record");
+
+    private static final String HEADER = "# todomanager traffic v1: stream gap_us method path status created_id content_type body";
+    private static final Map<Integer, Long> lastRequest = new HashMap<>();
+    private static final ThreadLocal<Integer> unrecordedDepth = ThreadLocal.withInitial(() -> 0);
+    private static BufferedWriter writer;
+
+    public record Entry(int stream, long gapMicros, String method, String path, int status, String createdId,
+                        String contentType, byte[] body) {
+    }
+
+    private TrafficRecorder() {
+    }
+
+    public static Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            if (LOG == null) {
+                return chain.proceed(request);
+            }
+            long start = System.nanoTime();
+            Response response = chain.proceed(request);
+            if (unrecordedDepth.get() > 0) {
+                skip(request.url().port(), System.nanoTime() - start);
+                return response;
+            }
+            byte[] body = requestBody(request);
+            MediaType contentType = request.body() != null ? request.body().contentType() : null;
+            // only a create's answer is read, and only peeked, so the test still gets the whole body
+            byte[] created = request.method().equals("POST") && response.code() == 201 ? response.peekBody(Long.MAX_VALUE).bytes() : new byte[0];
+            String createdId = createdId(request.method(), request.url().pathSegments(), response.code(), response.header("Content-Type"), created);
+            append(request.url().port(), start, request.method(), path(request), response.code(), createdId,
+                    contentType != null ? contentType.toString() : null, body);
+            return response;
+        };
+    }
+
+    // requests the harness sends for itself while work runs, on this thread, are left out of the log
+    public static <T> T unrecorded(Supplier<T> work) {
+        unrecordedDepth.set(unrecordedDepth.get() + 1);
+        try {
+            return work.get();
+        } finally {
+            unrecordedDepth.set(unrecordedDepth.get() - 1);
+        }
+    }
+
+    public static void unrecorded(Runnable work) {
+        unrecorded(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // a (re)started server on this port: the next request's gap starts from here, not from before the restart
+    public static synchronized void serverStarted(int port) {
+        if (LOG != null && lastRequest.containsKey(port)) {
+            lastRequest.put(port, System.nanoTime());
+        }
+    }
+
+    private static synchronized void skip(int stream, long elapsedNanos) {
+        lastRequest.computeIfPresent(stream, (port, previous) -> previous + elapsedNanos);
+    }
+
+    private static synchronized void append(int stream, long start, String method, String path, int status, String createdId,
+                                            String contentType, byte[] body) throws IOException {
+        if (writer == null) {
+            Path log = Paths.get(LOG);
+            if (log.getParent() != null) {
+                Files.createDirectories(log.getParent());
+            }
+            boolean fresh = !Files.exists(log) || Files.size(log) == 0;
+            writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (fresh) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+        }
+        Long previous = lastRequest.put(stream, start);
+        long gapMicros = previous != null ? Math.max(0, (start - previous) / 1000) : 0;
+        writer.write(stream + "\t" + gapMicros + "\t" + method + "\t" + path + "\t" + status + "\t" + dash(createdId) + "\t"
+                + dash(contentType) + "\t" + (body.length > 0 ? Base64.getEncoder().encodeToString(body) : "-"));
+        writer.newLine();
+        // a line at a time, so a run that is killed still leaves a usable log
+        writer.flush();
+    }
+
+    private static String dash(String value) {
+        return value != null ? value : "-";
+    }
+
+    private static String path(Request request) {
+        String query = request.url().encodedQuery();
+        return request.url().encodedPath() + (query != null ? "?" + query : "");
+    }
+
+    private static byte[] requestBody(Request request) throws IOException {
+        if (request.body() == null) {
+            return new byte[0];
+        }
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readByteArray();
+    }
+
+    //----------------------------------------------------------- reading -----------------------------------------------------------//
+
+    public static List<Entry> read(Path log) {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 8) {
+                    throw new IllegalArgumentException("Not a traffic log line: " + line);
+                }
+                entries.add(new Entry(Integer.parseInt(fields[0]), Long.parseLong(fields[1]), fields[2], fields[3],
+                        Integer.parseInt(fields[4]), undash(fields[5]), undash(fields[6]),
+                        fields[7].equals("-") ? new byte[0] : Base64.getDecoder().decode(fields[7])));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + log, e);
+        }
+        return entries;
+    }
+
+    private static String undash(String value) {
+        return value.equals("-") ? null : value;
+    }
+
+    //----------------------------------------------------------- ids -----------------------------------------------------------//
+
+    // the type of the entities a relationship points at: /projects/:id/tasks lists todos
+    public static String relatedType(String relationship) {
+        return switch (relationship) {
+            case "tasks" -> "todos";
+            case "tasksof" -> "projects";
+            default -> relationship;
+        };
+    }
+
+    // the id given to the entity a call created, by POST /todos or by POST /projects/:id/tasks with fields; null otherwise
+    public static String createdId(String method, List<String> segments, int status, String contentType, byte[] body) {
+        if (!method.equals("POST") || status != 201 || body.length == 0 || (segments.size() != 1 && segments.size() != 3)) {
+            return null;
+        }
+        String type = segments.size() == 1 ? segments.get(0) : relatedType(segments.get(2));
+        try {
+            if (contentType != null && contentType.contains("xml")) {
+                ByteArrayInputStream in = new ByteArrayInputStream(body);
+                return switch (type) {
+                    case "todos" -> XmlEntityCodec.todo(in).id();
+                    case "projects" -> XmlEntityCodec.project(in).id();
+                    case "categories" -> XmlEntityCodec.category(in).id();
+                    default -> null;
+                };
+            }
+            Object id = ((JSONObject) new JSONParser().parse(new String(body, StandardCharsets.UTF_8))).get("id");
+            return id != null ? id.toString() : null;
+        } catch (IOException | ParseException | ClassCastException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// The XML wire format (Accept / Content-Type application/xml) read and written with StAX, one element at a
+// time, into the same records as JsonEntityDecoder. The API answers a collection as <todos><todo>..</todo></todos>
+// and lists each related entity as its own element, <tasks><id>2</id></tasks><tasks><id>1</id></tasks>.
+public final class XmlEntityCodec {
+
+    private static final XMLInputFactory INPUT = XMLInputFactory.newFactory();
+    private static final XMLOutputFactory OUTPUT = XMLOutputFactory.newFactory();
+
+    static {
+        INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        INPUT.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private XmlEntityCodec() {
+    }
+
+    // the element for one entity of a type: todos -> todo
+    public static String element(String type) {
+        return switch (type) {
+            case "todos" -> "todo";
+            case "projects" -> "project";
+            case "categories" -> "category";
+            default -> throw new IllegalArgumentException("Unknown entity type: " + type);
+        };
+    }
+
+    //----------------------------------------------------------- decode -----------------------------------------------------------//
+
+    // <todos>...</todos> as answered by /todos, /todos/:id, /projects/:id/tasks and /categories/:id/todos
+    public static List<Todo> todos(InputStream in) throws IOException {
+        return readList(in, "todos", XmlEntityCodec::readTodo);
+    }
+
+    public static List<Project> projects(InputStream in) throws IOException {
+        return readList(in, "projects", XmlEntityCodec::readProject);
+    }
+
+    public static List<Category> categories(InputStream in) throws IOException {
+        return readList(in, "categories", XmlEntityCodec::readCategory);
+    }
+
+    // a single entity, as answered by a POST or PUT
+    public static Todo todo(InputStream in) throws IOException {
+        return readSingle(in, XmlEntityCodec::readTodo);
+    }
+
+    public static Project project(InputStream in) throws IOException {
+        return readSingle(in, XmlEntityCodec::readProject);
+    }
+
+    public static Category category(InputStream in) throws IOException {
+        return readSingle(in, XmlEntityCodec::readCategory);
+    }
+
+    private interface EntityReader<T> {
+        T read(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    private static <T> List<T> readList(InputStream in, String root, EntityReader<T> entityReader) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT.createXMLStreamReader(in);
+            reader.nextTag();
+            if (!reader.getLocalName().equals(root)) {
+                throw new IOException("Expected <" + root + "> but found <" + reader.getLocalName() + ">.");
+            }
+            List<T> entities = new ArrayList<>();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                entities.add(entityReader.read(reader));
+            }
+            return entities;
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XML: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static <T> T readSingle(InputStream in, EntityReader<T> entityReader) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT.createXMLStreamReader(in);
+            reader.nextTag();
+            return entityReader.read(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XML: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static Todo readTodo(XMLStreamReader reader) throws XMLStreamException {
+        String id = null;
+        String title = "";
+        boolean doneStatus = false;
+        String description = "";
+        List<String> categories = new ArrayList<>();
+        List<String> tasksof = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "id" -> id = reader.getElementText();
+                case "title" -> title = reader.getElementText();
+                case "doneStatus" -> doneStatus = Boolean.parseBoolean(reader.getElementText());
+                case "description" -> description = reader.getElementText();
+                case "categories" -> categories.add(readId(reader));
+                case "tasksof" -> tasksof.add(readId(reader));
+                default -> skip(reader);
+            }
+        }
+        return new Todo(id, title, doneStatus, description, categories, tasksof);
+    }
+
+    private static Project readProject(XMLStreamReader reader) throws XMLStreamException {
+        String id = null;
+        String title = "";
+        boolean completed = false;
+        boolean active = false;
+        String description = "";
+        List<String> tasks = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "id" -> id = reader.getElementText();
+                case "title" -> title = reader.getElementText();
+                case "completed" -> completed = Boolean.parseBoolean(reader.getElementText());
+                case "active" -> active = Boolean.parseBoolean(reader.getElementText());
+                case "description" -> description = reader.getElementText();
+                case "tasks" -> tasks.add(readId(reader));
+                case "categories" -> categories.add(readId(reader));
+                default -> skip(reader);
+            }
+        }
+        return new Project(id, title, completed, active, description, tasks, categories);
+    }
+
+    private static Category readCategory(XMLStreamReader reader) throws XMLStreamException {
+        String id = null;
+        String title = "";
+        String description = "";
+        List<String> todos = new ArrayList<>();
+        List<String> projects = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "id" -> id = reader.getElementText();
+                case "title" -> title = reader.getElementText();
+                case "description" -> description = reader.getElementText();
+                case "todos" -> todos.add(readId(reader));
+                case "projects" -> projects.add(readId(reader));
+                default -> skip(reader);
+            }
+        }
+        return new Category(id, title, description, todos, projects);
+    }
+
+    // one related entity, <tasks><id>2</id></tasks>; anything but its id is skipped
+    private static String readId(XMLStreamReader reader) throws XMLStreamException {
+        String id = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (reader.getLocalName().equals("id")) {
+                id = reader.getElementText();
+            } else {
+                skip(reader);
+            }
+        }
+        return id;
+    }
+
+    // leaves the reader on the end tag of the current element
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // the stream itself is closed by whoever opened it
+            }
+        }
+    }
+
+    //----------------------------------------------------------- encode -----------------------------------------------------------//
+
+    // a request body, <todo><title>..</title></todo>; the API ignores the name of the root element
+    public static void write(OutputStream out, String element, Map<?, ?> fields) throws IOException {
+        writeDocument(out, writer -> {
+            writer.writeStartElement(element);
+            for (Map.Entry<?, ?> field : fields.entrySet()) {
+                writeField(writer, String.valueOf(field.getKey()), String.valueOf(field.getValue()));
+            }
+            writer.writeEndElement();
+        });
+    }
+
+    // collections in the same shape the API answers with
+    public static void writeTodos(OutputStream out, List<Todo> todos) throws IOException {
+        writeDocument(out, writer -> {
+            writer.writeStartElement("todos");
+            for (Todo todo : todos) {
+                writer.writeStartElement("todo");
+                writeField(writer, "doneStatus", String.valueOf(todo.doneStatus()));
+                writeField(writer, "description", todo.description());
+                writeIds(writer, "categories", todo.categories());
+                writeIds(writer, "tasksof", todo.tasksof());
+                writeField(writer, "id", todo.id());
+                writeField(writer, "title", todo.title());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        });
+    }
+
+    public static void writeProjects(OutputStream out, List<Project> projects) throws IOException {
+        writeDocument(out, writer -> {
+            writer.writeStartElement("projects");
+            for (Project project : projects) {
+                writer.writeStartElement("project");
+                writeField(writer, "active", String.valueOf(project.active()));
+                writeField(writer, "description", project.description());
+                writeField(writer, "id", project.id());
+                writeField(writer, "completed", String.valueOf(project.completed()));
+                writeField(writer, "title", project.title());
+                writeIds(writer, "tasks", project.tasks());
+                writeIds(writer, "categories", project.categories());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        });
+    }
+
+    public static void writeCategories(OutputStream out, List<Category> categories) throws IOException {
+        writeDocument(out, writer -> {
+            writer.writeStartElement("categories");
+            for (Category category : categories) {
+                writer.writeStartElement("category");
+                writeField(writer, "description", category.description());
+                writeField(writer, "id", category.id());
+                writeField(writer, "title", category.title());
+                writeIds(writer, "todos", category.todos());
+                writeIds(writer, "projects", category.projects());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        });
+    }
+
+    private interface DocumentBody {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+    // the JDK writer encodes char by char when handed an OutputStream; a buffered Writer is several times faster
+    private static void writeDocument(OutputStream out, DocumentBody body) throws IOException {
+        Writer text = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            XMLStreamWriter writer = OUTPUT.createXMLStreamWriter(text);
+            body.write(writer);
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write XML: " + e.getMessage(), e);
+        }
+        text.flush();
+    }
+
+    private static void writeField(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value == null || value.isEmpty()) {
+            writer.writeEmptyElement(name);
+            return;
+        }
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static void writeIds(XMLStreamWriter writer, String relationship, List<String> ids) throws XMLStreamException {
+        for (String id : ids) {
+            writer.writeStartElement(relationship);
+            writeField(writer, "id", id);
+            writer.writeEndElement();
+        }
+    }
+}